@@ -0,0 +1,77 @@
+package com.kiki.blog.app.config;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.util.List;
+
+@Configuration
+public class CacheConfig {
+
+    /**
+     * The cached DTOs are mutable, so the caches keep them as JSON, with their types, and hand out a fresh copy on
+     * every read. Otherwise a caller changing what it got would change what every later caller reads.
+     */
+    @Bean
+    public CacheManager cacheManager(ObjectMapper objectMapper,
+                                     @Value("${spring.cache.cache-names}") List<String> cacheNames,
+                                     @Value("${spring.cache.caffeine.spec}") String cacheSpecification) {
+        ObjectMapper storeMapper = objectMapper.copy()
+                .disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE)
+                .activateDefaultTyping(BasicPolymorphicTypeValidator.builder()
+                        .allowIfSubType("com.kiki.blog.")
+                        .allowIfSubType("java.util.")
+                        .build(), ObjectMapper.DefaultTyping.NON_FINAL);
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new CopyingCache(name, cache, storeMapper, isAllowNullValues());
+            }
+        };
+        cacheManager.setCacheSpecification(cacheSpecification);
+        cacheManager.setCacheNames(cacheNames);
+        return cacheManager;
+    }
+
+    private static class CopyingCache extends CaffeineCache {
+        private final ObjectMapper storeMapper;
+
+        CopyingCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache, ObjectMapper storeMapper, boolean allowNullValues) {
+            super(name, cache, allowNullValues);
+            this.storeMapper = storeMapper;
+        }
+
+        @Override
+        protected Object toStoreValue(Object userValue) {
+            if (userValue == null) {
+                return super.toStoreValue(null);
+            }
+            try {
+                return storeMapper.writeValueAsBytes(userValue);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to cache " + userValue.getClass().getName(), e);
+            }
+        }
+
+        @Override
+        protected Object fromStoreValue(Object storeValue) {
+            if (!(storeValue instanceof byte[])) {
+                return super.fromStoreValue(storeValue);
+            }
+            try {
+                return storeMapper.readValue((byte[]) storeValue, Object.class);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to read cached value", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.kiki.blog.app.config;
+
+import com.kiki.blog.app.security.model.BlogUserDetail;
+import com.kiki.blog.app.service.CommentService;
+import com.kiki.blog.app.service.PostService;
+import com.kiki.blog.app.service.UserService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaVendorAdapter;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionDefinition;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty("datasource.replicas[0].url")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class DataSourceConfig {
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(DataSourceProperties properties,
+                                                        ReplicaProperties replicaProperties,
+                                                        Environment environment,
+                                                        ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = pool("primary", properties, environment, meterRegistry);
+        List<DataSource> replicas = new ArrayList<>();
+        for (DataSourceProperties replica : replicaProperties.getReplicas()) {
+            if (replica.getUsername() == null) {
+                replica.setUsername(properties.determineUsername());
+                replica.setPassword(properties.determinePassword());
+            }
+            replicas.add(pool("replica-" + replicas.size(), replica, environment, meterRegistry));
+        }
+        return new ReadWriteRoutingDataSource(
+                primary,
+                replicas,
+                List.of(PostService.class.getName(), CommentService.class.getName(), UserService.class.getName()),
+                List.of(PostService.class.getName() + ".getPost", CommentService.class.getName() + ".getComments"),
+                DataSourceConfig::currentUser,
+                replicaProperties.getReadYourWrites(),
+                replicaProperties.getMaxLag(),
+                replicaProperties.getLagQuery());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Replaces the auto-configured adapter so that transactions which may read from a replica only read the
+     * second-level cache and never fill it. An entity or query result loaded from a lagging replica would otherwise be
+     * cached, and served long after the replica caught up.
+     */
+    @Bean
+    public JpaVendorAdapter jpaVendorAdapter(JpaProperties properties, ReadWriteRoutingDataSource routingDataSource) {
+        HibernateJpaDialect dialect = new HibernateJpaDialect() {
+            @Override
+            public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition) throws SQLException {
+                Object transactionData = super.beginTransaction(entityManager, definition);
+                if (definition.isReadOnly() && routingDataSource.mayReadFromReplica(definition.getName())) {
+                    entityManager.unwrap(Session.class).setCacheMode(CacheMode.GET);
+                }
+                return transactionData;
+            }
+        };
+        HibernateJpaVendorAdapter adapter = new HibernateJpaVendorAdapter() {
+            @Override
+            public HibernateJpaDialect getJpaDialect() {
+                return dialect;
+            }
+        };
+        adapter.setShowSql(properties.isShowSql());
+        if (properties.getDatabase() != null) {
+            adapter.setDatabase(properties.getDatabase());
+        }
+        if (properties.getDatabasePlatform() != null) {
+            adapter.setDatabasePlatform(properties.getDatabasePlatform());
+        }
+        adapter.setGenerateDdl(properties.isGenerateDdl());
+        return adapter;
+    }
+
+    private static HikariDataSource pool(String name, DataSourceProperties properties, Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(name);
+        meterRegistry.ifAvailable(registry -> dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        return dataSource;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof BlogUserDetail
+                ? ((BlogUserDetail) authentication.getPrincipal()).getUid()
+                : null;
+    }
+}
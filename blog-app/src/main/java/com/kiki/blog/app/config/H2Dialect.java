@@ -0,0 +1,14 @@
+package com.kiki.blog.app.config;
+
+import java.sql.Types;
+
+/**
+ * H2 1.4 stores binary columns as VARBINARY, so binary UUID ids are declared as such for schema validation to accept
+ * the columns created by the migrations.
+ */
+public class H2Dialect extends org.hibernate.dialect.H2Dialect {
+
+    public H2Dialect() {
+        registerColumnType(Types.BINARY, "varbinary");
+    }
+}
@@ -0,0 +1,68 @@
+package com.kiki.blog.app.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsProperties;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.MetricsRepositoryMethodInvocationListener;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.repository.core.support.RepositoryFactoryCustomizer;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+import org.springframework.util.function.SingletonSupplier;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Tags http.server.requests with the handler method name, which is the operationId for every generated *Api
+     * interface, so latency can be broken down per api.yaml operation.
+     */
+    @Bean
+    public WebMvcTagsContributor operationTagsContributor() {
+        return new WebMvcTagsContributor() {
+            @Override
+            public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler, Throwable exception) {
+                return Tags.of("operation", handler instanceof HandlerMethod ? ((HandlerMethod) handler).getMethod().getName() : "none");
+            }
+
+            @Override
+            public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+                return Tags.empty();
+            }
+        };
+    }
+
+    /**
+     * Replaces RepositoryMetricsAutoConfiguration, whose post processor in Spring Boot 2.5.0 creates the MeterRegistry
+     * before the registry is customized, leaving it without the histogram filters and binders. The listener here only
+     * resolves the registry on the first repository call.
+     */
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry, ObjectProvider<MetricsProperties> metricsProperties) {
+        SingletonSupplier<RepositoryMethodInvocationListener> listener = SingletonSupplier.of(() -> {
+            MetricsProperties.Data.Repository repository = metricsProperties.getObject().getData().getRepository();
+            return new MetricsRepositoryMethodInvocationListener(meterRegistry.getObject(), new DefaultRepositoryTagsProvider(),
+                    repository.getMetricName(), repository.getAutotime());
+        });
+        RepositoryFactoryCustomizer customizer = factory -> factory.addInvocationListener(invocation -> listener.obtain().afterInvocation(invocation));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(customizer);
+                }
+                return bean;
+            }
+        };
+    }
+}
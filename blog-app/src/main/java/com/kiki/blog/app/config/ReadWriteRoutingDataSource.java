@@ -0,0 +1,158 @@
+package com.kiki.blog.app.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions started by one of the read services to the replicas in turn, and everything else to
+ * the primary. Reads that fill a cache stay on the primary too, as a stale result would outlive the replica's lag.
+ * Has to sit behind a LazyConnectionDataSourceProxy, as the transaction is only known to be read-only once the
+ * connection is used, not when the transaction manager first asks for it.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+    private static final String PRIMARY = "primary";
+
+    private final Map<String, DataSource> replicas = new LinkedHashMap<>();
+    private final String[] replicaKeys;
+    private final Set<String> lagging = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger next = new AtomicInteger();
+    private final Cache<String, Boolean> recentWriters;
+    private final Collection<String> readServices;
+    private final Collection<String> cachedReads;
+    private final Supplier<String> currentUser;
+    private final Duration maxLag;
+    private final String lagQuery;
+
+    public ReadWriteRoutingDataSource(DataSource primary,
+                                      List<DataSource> replicas,
+                                      Collection<String> readServices,
+                                      Collection<String> cachedReads,
+                                      Supplier<String> currentUser,
+                                      Duration readYourWrites,
+                                      Duration maxLag,
+                                      String lagQuery) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.put("replica-" + i, replicas.get(i));
+        }
+        targets.putAll(this.replicas);
+        this.replicaKeys = this.replicas.keySet().toArray(new String[0]);
+        this.readServices = readServices;
+        this.cachedReads = cachedReads;
+        this.currentUser = currentUser;
+        this.maxLag = maxLag;
+        this.lagQuery = lagQuery;
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(100000)
+                .expireAfterWrite(readYourWrites)
+                .build();
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            String user = currentUser.get();
+            if (user != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                recentWriters.put(user, Boolean.TRUE);
+            }
+            return PRIMARY;
+        }
+        if (!mayReadFromReplica(TransactionSynchronizationManager.getCurrentTransactionName())) {
+            return PRIMARY;
+        }
+        String user = currentUser.get();
+        if (user != null && recentWriters.getIfPresent(user) != null) {
+            return PRIMARY;
+        }
+        return nextReplica();
+    }
+
+    /**
+     * Tells whether a read-only transaction of that name may be sent to a replica.
+     */
+    public boolean mayReadFromReplica(String transactionName) {
+        return isReadService(transactionName) && !cachedReads.contains(transactionName);
+    }
+
+    /**
+     * Runs the lag query on every replica and stops reading from those further behind than the tolerated lag, or that
+     * cannot be reached, until a later check finds them caught up. The query returns the lag in seconds.
+     */
+    @Scheduled(fixedDelayString = "${datasource.lag-check-interval:5000}")
+    public void checkLag() {
+        if (lagQuery == null) {
+            return;
+        }
+        replicas.forEach((key, replica) -> {
+            boolean behind;
+            try {
+                Double lag = new JdbcTemplate(replica).queryForObject(lagQuery, Double.class);
+                behind = lag != null && lag * 1000 > maxLag.toMillis();
+            } catch (DataAccessException e) {
+                logger.warn("Failed to check lag of {}", key, e);
+                behind = true;
+            }
+            if (behind ? lagging.add(key) : lagging.remove(key)) {
+                logger.info("{} is {}", key, behind ? "lagging, reading from the primary instead" : "caught up");
+            }
+        });
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof Closeable) {
+                ((Closeable) dataSource).close();
+            }
+        }
+    }
+
+    private boolean isReadService(String transactionName) {
+        if (transactionName == null) {
+            return false;
+        }
+        for (String service : readServices) {
+            if (transactionName.startsWith(service + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String nextReplica() {
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicaKeys.length; i++) {
+            String key = replicaKeys[Math.floorMod(start + i, replicaKeys.length)];
+            if (!lagging.contains(key)) {
+                return key;
+            }
+        }
+        return PRIMARY;
+    }
+}
@@ -0,0 +1,33 @@
+package com.kiki.blog.app.config;
+
+import lombok.Data;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties("datasource")
+public class ReplicaProperties {
+    /**
+     * Read replicas of spring.datasource, each taking the same keys. Username and password default to the primary's.
+     */
+    private List<DataSourceProperties> replicas = new ArrayList<>();
+
+    /**
+     * How long the reads of a user stay on the primary after their own write. Should cover the usual replica lag.
+     */
+    private Duration readYourWrites = Duration.ofSeconds(5);
+
+    /**
+     * The replica lag beyond which reads go to the primary instead, as measured by the lag query.
+     */
+    private Duration maxLag = Duration.ofSeconds(10);
+
+    /**
+     * Query returning how many seconds a replica is behind the primary. Lag is not checked when unset.
+     */
+    private String lagQuery;
+}
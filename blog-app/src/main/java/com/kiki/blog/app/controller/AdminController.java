@@ -0,0 +1,25 @@
+package com.kiki.blog.app.controller;
+
+import com.kiki.blog.app.service.LikeCounterService;
+import com.kiki.blog.openapi.api.AdminApi;
+import com.kiki.blog.openapi.model.LikeRecount;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class AdminController implements AdminApi {
+
+    private final LikeCounterService likeCounterService;
+
+    @Autowired
+    public AdminController(LikeCounterService likeCounterService) {
+        this.likeCounterService = likeCounterService;
+    }
+
+    @Override
+    public ResponseEntity<LikeRecount> recountLikes() throws Exception {
+        return new ResponseEntity<>(likeCounterService.recount(), HttpStatus.OK);
+    }
+}
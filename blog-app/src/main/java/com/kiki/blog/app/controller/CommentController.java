@@ -9,6 +9,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 public class CommentController implements CommentApi {
 
@@ -22,12 +25,17 @@ public class CommentController implements CommentApi {
     }
 
     @Override
-    public ResponseEntity<Comment> getComment(String commentId) throws Exception {
-        return new ResponseEntity<>(commentService.getComment(commentId), HttpStatus.OK);
+    public ResponseEntity<Comment> getComment(String commentId, String view) throws Exception {
+        return new ResponseEntity<>(commentService.getComment(commentId, view), HttpStatus.OK);
     }
 
     @Override
     public ResponseEntity<Integer> getCommentNumLikes(String commentId) throws Exception {
         return new ResponseEntity<>(commentService.getCommentLikes(commentId), HttpStatus.OK);
     }
+
+    @Override
+    public ResponseEntity<Map<String, Integer>> getCommentsNumLikes(List<String> ids) throws Exception {
+        return new ResponseEntity<>(commentService.getCommentsLikes(ids), HttpStatus.OK);
+    }
 }
@@ -0,0 +1,32 @@
+package com.kiki.blog.app.controller;
+
+import com.kiki.blog.app.service.ExportService;
+import com.kiki.blog.app.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+public class ExportController {
+
+    private final UserService userService;
+    private final ExportService exportService;
+
+    @Autowired
+    public ExportController(UserService userService, ExportService exportService) {
+        this.userService = userService;
+        this.exportService = exportService;
+    }
+
+    @GetMapping(value = "/user/{userId}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUser(@PathVariable("userId") String userId) throws Exception {
+        userService.validateUserContext(userId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> exportService.exportUser(userId, outputStream));
+    }
+}
@@ -1,48 +1,91 @@
 package com.kiki.blog.app.controller;
 
+import com.kiki.blog.app.model.ImageVariant;
 import com.kiki.blog.app.service.ImageService;
 import com.kiki.blog.openapi.api.ImageApi;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 public class ImageController implements ImageApi {
 
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final String IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().getHeaderValue() + ", immutable";
+    private static final String REVALIDATE = CacheControl.noCache().getHeaderValue();
+
     private final ImageService imageService;
     private final ServletContext servletContext;
+    private final HttpServletRequest request;
 
     @Autowired
-    public ImageController(ImageService imageService, ServletContext servletContext) {
+    public ImageController(ImageService imageService, ServletContext servletContext, HttpServletRequest request) {
         this.imageService = imageService;
         this.servletContext = servletContext;
+        this.request = request;
     }
 
+    /**
+     * A raw image body leaves the multipart part empty and is read straight from the request, so it is written once,
+     * without the container spooling it first.
+     */
     @Override
     public ResponseEntity<String> uploadImage(MultipartFile image) throws Exception {
-        String file = imageService.storeFile(image);
+        String file = image != null
+                ? imageService.storeFile(image)
+                : imageService.storeStream(request.getInputStream(), request.getContentLengthLong());
         return new ResponseEntity<>(file, HttpStatus.OK);
     }
 
     @Override
-    public ResponseEntity<Resource> getImage(String imageId) throws Exception {
-        Resource resource = imageService.loadFile(imageId);
-        String contentType = servletContext.getMimeType(resource.getFile().getAbsolutePath());
+    public ResponseEntity<Resource> getImage(String imageId, String size) throws Exception {
+        ImageVariant variant = ImageVariant.fromValue(size);
+        Optional<Resource> variantResource = variant == null ? Optional.empty() : imageService.loadVariant(imageId, variant);
+        Resource resource = variantResource.isPresent() ? variantResource.get() : imageService.loadFile(imageId);
+        String cacheControl = variant == null || variantResource.isPresent() ? IMMUTABLE : REVALIDATE;
+        String eTag = imageService.getETag(imageId, variantResource.isPresent() ? variant : null);
+        if (new ServletWebRequest(request).checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).header(HttpHeaders.CACHE_CONTROL, cacheControl).build();
+        }
 
+        String contentType = servletContext.getMimeType(resource.getFilename());
         if(contentType == null) {
             contentType = "application/octet-stream";
         }
 
-        return ResponseEntity.ok()
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .contentType(MediaType.parseMediaType(contentType))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + resource.getFilename() + "\"")
-                .body(resource);
+                .eTag(eTag)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + resource.getFilename() + "\"");
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))
+                && HttpMethod.GET.matches(request.getMethod())
+                && request.getHeader(HttpHeaders.RANGE) == null) {
+            File file = resource.getFile();
+            request.setAttribute(SENDFILE_FILENAME, file.getAbsolutePath());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, file.length());
+            return response.contentLength(file.length()).build();
+        }
+        return response.body(resource);
     }
 }
@@ -3,9 +3,12 @@ package com.kiki.blog.app.controller;
 import com.kiki.blog.app.entity.PostEntity;
 import com.kiki.blog.app.service.CommentService;
 import com.kiki.blog.app.service.PostService;
+import com.kiki.blog.app.service.PostViewService;
 import com.kiki.blog.openapi.api.PostApi;
 import com.kiki.blog.openapi.model.Comment;
 import com.kiki.blog.openapi.model.Post;
+import com.kiki.blog.openapi.model.PostSlice;
+import com.kiki.blog.openapi.model.PostView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -14,22 +17,25 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 public class PostController implements PostApi {
 
     private final PostService postService;
     private final CommentService commentService;
+    private final PostViewService postViewService;
 
     @Autowired
-    public PostController(PostService postService, CommentService commentService) {
+    public PostController(PostService postService, CommentService commentService, PostViewService postViewService) {
         this.postService = postService;
         this.commentService = commentService;
+        this.postViewService = postViewService;
     }
 
     @Override
-    public ResponseEntity<List<Comment>> getComments(String postId) throws Exception {
-        return new ResponseEntity<>(commentService.getComments(postId), HttpStatus.OK);
+    public ResponseEntity<List<Comment>> getComments(String postId, String view) throws Exception {
+        return new ResponseEntity<>(commentService.getComments(postId, view), HttpStatus.OK);
     }
 
     @Override
@@ -37,14 +43,29 @@ public class PostController implements PostApi {
         return new ResponseEntity<>(postService.getPost(postId), HttpStatus.OK);
     }
 
+    @Override
+    public ResponseEntity<PostView> getPostView(String postId) throws Exception {
+        return new ResponseEntity<>(postViewService.getPostView(postId), HttpStatus.OK);
+    }
+
     @Override
     public ResponseEntity<Integer> getPostNumLikes(String postId) throws Exception {
         return new ResponseEntity<>(postService.getPostLikes(postId), HttpStatus.OK);
     }
 
+    @Override
+    public ResponseEntity<Map<String, Integer>> getPostsNumLikes(List<String> ids) throws Exception {
+        return new ResponseEntity<>(postService.getPostsLikes(ids), HttpStatus.OK);
+    }
+
     @Override
     public ResponseEntity<List<Post>> latestPosts(Integer pageNumber, Integer pageSize) throws Exception {
         List<Post> list = postService.getLatestPosts(pageNumber, pageSize, "datetime");
         return new ResponseEntity<>(list, HttpStatus.OK);
     }
+
+    @Override
+    public ResponseEntity<PostSlice> latestPostsByCursor(Integer pageSize, String cursor) throws Exception {
+        return new ResponseEntity<>(postService.getLatestPostsByCursor(cursor, pageSize), HttpStatus.OK);
+    }
 }
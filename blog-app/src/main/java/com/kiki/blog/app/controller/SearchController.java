@@ -0,0 +1,25 @@
+package com.kiki.blog.app.controller;
+
+import com.kiki.blog.app.service.SearchService;
+import com.kiki.blog.openapi.api.SearchApi;
+import com.kiki.blog.openapi.model.SearchSlice;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class SearchController implements SearchApi {
+
+    private final SearchService searchService;
+
+    @Autowired
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    @Override
+    public ResponseEntity<SearchSlice> search(String q, Integer pageSize, String type, String cursor) throws Exception {
+        return new ResponseEntity<>(searchService.search(q, pageSize, type, cursor), HttpStatus.OK);
+    }
+}
@@ -1,12 +1,14 @@
 package com.kiki.blog.app.controller;
 
 import com.kiki.blog.app.service.CommentService;
+import com.kiki.blog.app.service.FeedService;
 import com.kiki.blog.app.service.PostService;
 import com.kiki.blog.app.service.UserService;
 import com.kiki.blog.openapi.api.UserApi;
 import com.kiki.blog.openapi.model.Comment;
 import com.kiki.blog.openapi.model.CreateUser;
 import com.kiki.blog.openapi.model.Post;
+import com.kiki.blog.openapi.model.PostSlice;
 import com.kiki.blog.openapi.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -22,12 +24,14 @@ public class UserController implements UserApi {
     private final UserService userService;
     private final PostService postService;
     private final CommentService commentService;
+    private final FeedService feedService;
 
     @Autowired
-    public UserController(UserService userService, PostService postService, CommentService commentService) {
+    public UserController(UserService userService, PostService postService, CommentService commentService, FeedService feedService) {
         this.userService = userService;
         this.postService = postService;
         this.commentService = commentService;
+        this.feedService = feedService;
     }
 
     @Override
@@ -109,6 +113,12 @@ public class UserController implements UserApi {
         return new ResponseEntity<>(postService.getPosts(userId), HttpStatus.OK);
     }
 
+    @Override
+    public ResponseEntity<PostSlice> getFeed(String userId, Integer pageSize, String cursor) throws Exception {
+        userService.validateUserContext(userId);
+        return new ResponseEntity<>(feedService.getFeed(userId, cursor, pageSize), HttpStatus.OK);
+    }
+
     @Override
     public ResponseEntity<Comment> postComment(String userId, String postId, @Valid Comment comment) throws Exception {
         userService.validateUserContext(userId);
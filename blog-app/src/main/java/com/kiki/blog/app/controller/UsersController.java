@@ -0,0 +1,27 @@
+package com.kiki.blog.app.controller;
+
+import com.kiki.blog.app.service.UserService;
+import com.kiki.blog.openapi.api.UsersApi;
+import com.kiki.blog.openapi.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class UsersController implements UsersApi {
+
+    private final UserService userService;
+
+    @Autowired
+    public UsersController(UserService userService) {
+        this.userService = userService;
+    }
+
+    @Override
+    public ResponseEntity<List<User>> getUsersByIds(List<String> ids) throws Exception {
+        return new ResponseEntity<>(userService.getUsers(ids), HttpStatus.OK);
+    }
+}
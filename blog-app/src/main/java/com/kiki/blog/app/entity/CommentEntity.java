@@ -9,10 +9,14 @@ import java.util.UUID;
 
 @Data
 @Entity
+@Table(indexes = {
+        @Index(name = "comment_post_id_idx", columnList = "post_id"),
+        @Index(name = "comment_user_id_datetime_id_idx", columnList = "user_id, datetime, id")})
 public class CommentEntity {
     private UUID id;
     private String content;
     private OffsetDateTime datetime;
+    private long numLikes;
     private UserEntity user;
     private PostEntity post;
 
@@ -23,6 +27,11 @@ public class CommentEntity {
         return id;
     }
 
+    @Column(nullable = false, updatable = false)
+    public long getNumLikes() {
+        return numLikes;
+    }
+
     @ManyToOne
     public UserEntity getUser() {
         return user;
@@ -8,6 +8,9 @@ import java.util.UUID;
 
 @Data
 @Entity
+@Table(
+        uniqueConstraints = @UniqueConstraint(name = "follow_from_id_to_id_key", columnNames = {"from_id", "to_id"}),
+        indexes = @Index(name = "follow_to_id_from_id_idx", columnList = "to_id, from_id"))
 public class FollowEntity {
     private UUID id;
     private UserEntity from;
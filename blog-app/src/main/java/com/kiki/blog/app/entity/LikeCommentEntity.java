@@ -8,6 +8,9 @@ import java.util.UUID;
 
 @Data
 @Entity
+@Table(
+        uniqueConstraints = @UniqueConstraint(name = "like_comment_user_id_comment_id_key", columnNames = {"user_id", "comment_id"}),
+        indexes = @Index(name = "like_comment_comment_id_user_id_idx", columnList = "comment_id, user_id"))
 public class LikeCommentEntity {
     private UUID id;
     private UserEntity user;
@@ -8,6 +8,9 @@ import java.util.UUID;
 
 @Data
 @Entity
+@Table(
+        uniqueConstraints = @UniqueConstraint(name = "like_post_user_id_post_id_key", columnNames = {"user_id", "post_id"}),
+        indexes = @Index(name = "like_post_post_id_user_id_idx", columnList = "post_id, user_id"))
 public class LikePostEntity {
     private UUID id;
     private UserEntity user;
@@ -1,6 +1,8 @@
 package com.kiki.blog.app.entity;
 
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
@@ -9,11 +11,17 @@ import java.util.UUID;
 
 @Data
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "post")
+@Table(indexes = {
+        @Index(name = "post_datetime_id_idx", columnList = "datetime, id"),
+        @Index(name = "post_user_id_datetime_id_idx", columnList = "user_id, datetime, id"),
+        @Index(name = "post_post_id_idx", columnList = "post_id")})
 public class PostEntity {
     private UUID id;
     private String title;
     private String content;
     private OffsetDateTime datetime;
+    private long numLikes;
     private UserEntity user;
     private PostEntity post;
 
@@ -24,6 +32,16 @@ public class PostEntity {
         return id;
     }
 
+    @Column(updatable = false)
+    public OffsetDateTime getDatetime() {
+        return datetime;
+    }
+
+    @Column(nullable = false, updatable = false)
+    public long getNumLikes() {
+        return numLikes;
+    }
+
     @ManyToOne
     public UserEntity getUser() {
         return user;
@@ -1,13 +1,19 @@
 package com.kiki.blog.app.entity;
 
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import javax.persistence.*;
 import java.util.UUID;
 
 @Data
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
+@NaturalIdCache(region = "user-natural-id")
 public class UserEntity {
 
     private UUID id;
@@ -24,6 +30,7 @@ public class UserEntity {
         return id;
     }
 
+    @NaturalId(mutable = true)
     @Column(unique=true)
     public String getUsername() {
         return username;
@@ -1,6 +1,8 @@
 package com.kiki.blog.app.error;
 
 import com.kiki.blog.app.error.exception.FileNotFoundException;
+import com.kiki.blog.app.error.exception.InvalidRequestException;
+import com.kiki.blog.app.error.exception.ServiceUnavailableException;
 import com.kiki.blog.app.error.exception.UnauthorizedAccessException;
 import com.kiki.blog.app.error.exception.EntityNotFoundException;
 import com.kiki.blog.app.error.exception.UsernameConflictExceptions;
@@ -38,4 +40,14 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
     protected ResponseEntity<Object> handleFileNotFoundExceptions(FileNotFoundException ex) {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    protected ResponseEntity<Object> handleInvalidRequestExceptions(InvalidRequestException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    protected ResponseEntity<Object> handleServiceUnavailableExceptions(ServiceUnavailableException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
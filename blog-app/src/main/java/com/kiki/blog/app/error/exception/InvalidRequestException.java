@@ -0,0 +1,7 @@
+package com.kiki.blog.app.error.exception;
+
+public class InvalidRequestException extends Exception {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.kiki.blog.app.error.exception;
+
+public class ServiceUnavailableException extends Exception {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
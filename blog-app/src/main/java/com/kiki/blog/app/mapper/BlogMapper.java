@@ -0,0 +1,53 @@
+package com.kiki.blog.app.mapper;
+
+import com.kiki.blog.app.entity.CommentEntity;
+import com.kiki.blog.app.entity.PostEntity;
+import com.kiki.blog.app.entity.UserEntity;
+import com.kiki.blog.app.model.CommentSummary;
+import com.kiki.blog.app.model.CompactComment;
+import com.kiki.blog.app.model.CompactPost;
+import com.kiki.blog.app.model.CompactUser;
+import com.kiki.blog.openapi.model.Comment;
+import com.kiki.blog.openapi.model.Post;
+import com.kiki.blog.openapi.model.User;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+import java.util.UUID;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface BlogMapper {
+
+    User toUser(UserEntity userEntity);
+
+    UserEntity toUserEntity(User user);
+
+    Post toPost(PostEntity postEntity);
+
+    PostEntity toPostEntity(Post post);
+
+    Comment toComment(CommentEntity commentEntity);
+
+    CommentEntity toCommentEntity(Comment comment);
+
+    @Mapping(target = "user", source = "commentSummary")
+    @Mapping(target = "post", source = "commentSummary")
+    CompactComment toComment(CommentSummary commentSummary);
+
+    @Mapping(target = "id", source = "userId")
+    CompactUser toCompactUser(CommentSummary commentSummary);
+
+    @Mapping(target = "id", source = "postId")
+    @Mapping(target = "content", ignore = true)
+    @Mapping(target = "datetime", ignore = true)
+    CompactPost toCompactPost(CommentSummary commentSummary);
+
+    default String map(UUID id) {
+        return id == null ? null : id.toString();
+    }
+
+    default UUID map(String id) {
+        return id == null ? null : UUID.fromString(id);
+    }
+}
@@ -0,0 +1,20 @@
+package com.kiki.blog.app.model;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public interface CommentSummary {
+    UUID getId();
+
+    String getContent();
+
+    OffsetDateTime getDatetime();
+
+    UUID getUserId();
+
+    String getUsername();
+
+    String getAvatar();
+
+    UUID getPostId();
+}
@@ -0,0 +1,11 @@
+package com.kiki.blog.app.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.kiki.blog.openapi.model.Comment;
+
+/**
+ * A comment in the compact view, which leaves out the properties it does not load instead of sending them as nulls.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactComment extends Comment {
+}
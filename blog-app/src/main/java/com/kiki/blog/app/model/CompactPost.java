@@ -0,0 +1,8 @@
+package com.kiki.blog.app.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.kiki.blog.openapi.model.Post;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactPost extends Post {
+}
@@ -0,0 +1,8 @@
+package com.kiki.blog.app.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.kiki.blog.openapi.model.User;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactUser extends User {
+}
@@ -0,0 +1,46 @@
+package com.kiki.blog.app.model;
+
+import com.kiki.blog.app.error.exception.InvalidRequestException;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+public final class IdBatch {
+    public static final int MAX_SIZE = 100;
+
+    private IdBatch() {
+    }
+
+    /**
+     * Parses the ids of a batch lookup, dropping duplicates but keeping the order they were given in.
+     */
+    public static Set<UUID> parse(List<String> ids) throws InvalidRequestException {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_SIZE) {
+            throw new InvalidRequestException("Between 1 and " + MAX_SIZE + " ids must be given");
+        }
+        Set<UUID> parsed = new LinkedHashSet<>();
+        for (String id : ids) {
+            try {
+                parsed.add(UUID.fromString(id.trim()));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidRequestException("Invalid id " + id);
+            }
+        }
+        return parsed;
+    }
+
+    public static <T> Map<String, T> byId(Set<UUID> ids, Map<UUID, T> values) {
+        Map<String, T> result = new LinkedHashMap<>();
+        for (UUID id : ids) {
+            T value = values.get(id);
+            if (value != null) {
+                result.put(id.toString(), value);
+            }
+        }
+        return result;
+    }
+}
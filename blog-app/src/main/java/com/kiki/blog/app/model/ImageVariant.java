@@ -0,0 +1,36 @@
+package com.kiki.blog.app.model;
+
+import com.kiki.blog.app.error.exception.InvalidRequestException;
+
+public enum ImageVariant {
+    MEDIUM("medium", 800),
+    THUMB("thumb", 160);
+
+    private final String value;
+    private final int maxDimension;
+
+    ImageVariant(String value, int maxDimension) {
+        this.value = value;
+        this.maxDimension = maxDimension;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    public static ImageVariant fromValue(String value) throws InvalidRequestException {
+        if (value == null || value.equals("original")) {
+            return null;
+        }
+        for (ImageVariant variant : values()) {
+            if (variant.value.equals(value)) {
+                return variant;
+            }
+        }
+        throw new InvalidRequestException("Invalid image size " + value);
+    }
+}
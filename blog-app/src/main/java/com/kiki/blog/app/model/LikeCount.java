@@ -0,0 +1,9 @@
+package com.kiki.blog.app.model;
+
+import java.util.UUID;
+
+public interface LikeCount {
+    UUID getId();
+
+    Long getNumLikes();
+}
@@ -0,0 +1,13 @@
+package com.kiki.blog.app.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+public class LikeKey {
+    private UUID userId;
+    private UUID targetId;
+}
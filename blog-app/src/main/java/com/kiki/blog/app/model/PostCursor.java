@@ -0,0 +1,54 @@
+package com.kiki.blog.app.model;
+
+import com.kiki.blog.app.entity.PostEntity;
+import com.kiki.blog.app.error.exception.InvalidRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+public class PostCursor {
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Orders ids by their unsigned bytes, the way PostgreSQL sorts uuid columns and H2 sorts them with
+     * BINARY_COLLATION=UNSIGNED, so that cached timelines and database keysets page identically.
+     */
+    public static final Comparator<PostCursor> NEWEST_FIRST = Comparator
+            .comparing(PostCursor::getDatetime, OffsetDateTime.timeLineOrder())
+            .thenComparing(PostCursor::getId, (a, b) -> {
+                int compare = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+                return compare != 0 ? compare : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+            })
+            .reversed();
+
+    private OffsetDateTime datetime;
+    private UUID id;
+
+    public static PostCursor of(PostEntity post) {
+        return new PostCursor(post.getDatetime(), post.getId());
+    }
+
+    public static PostCursor decode(String cursor) throws InvalidRequestException {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            return new PostCursor(
+                    OffsetDateTime.parse(value.substring(0, separator)),
+                    UUID.fromString(value.substring(separator + 1)));
+        } catch (Exception e) {
+            throw new InvalidRequestException("Invalid cursor " + cursor);
+        }
+    }
+
+    public String encode() {
+        String value = datetime.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
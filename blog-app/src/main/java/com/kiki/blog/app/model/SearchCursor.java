@@ -0,0 +1,40 @@
+package com.kiki.blog.app.model;
+
+import com.kiki.blog.app.error.exception.InvalidRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+public class SearchCursor {
+    private static final String SEPARATOR = "|";
+
+    public static final Comparator<SearchCursor> BEST_FIRST = Comparator
+            .comparingDouble(SearchCursor::getScore).reversed()
+            .thenComparing(SearchCursor::getType)
+            .thenComparing(SearchCursor::getId);
+
+    private double score;
+    private SearchType type;
+    private UUID id;
+    private SearchStatistics statistics;
+
+    public static SearchCursor decode(String cursor) throws InvalidRequestException {
+        try {
+            String[] values = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\" + SEPARATOR);
+            return new SearchCursor(Double.parseDouble(values[0]), SearchType.valueOf(values[1]), UUID.fromString(values[2]), SearchStatistics.decode(values[3]));
+        } catch (Exception e) {
+            throw new InvalidRequestException("Invalid cursor " + cursor);
+        }
+    }
+
+    public String encode() {
+        String value = score + SEPARATOR + type.name() + SEPARATOR + id + SEPARATOR + statistics.encode();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,36 @@
+package com.kiki.blog.app.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * The collection statistics a query was scored with: how many documents were indexed, their total length and, per
+ * query word, how many of them contained it.
+ */
+@Data
+@AllArgsConstructor
+public class SearchStatistics {
+    private static final String SEPARATOR = ",";
+
+    private int documentCount;
+    private long totalLength;
+    private int[] frequencies;
+
+    public static SearchStatistics decode(String value) {
+        String[] values = value.split(SEPARATOR);
+        int[] frequencies = new int[values.length - 2];
+        for (int i = 0; i < frequencies.length; i++) {
+            frequencies[i] = Integer.parseInt(values[i + 2]);
+        }
+        return new SearchStatistics(Integer.parseInt(values[0]), Long.parseLong(values[1]), frequencies);
+    }
+
+    public String encode() {
+        return documentCount + SEPARATOR + totalLength + Arrays.stream(frequencies)
+                .mapToObj(frequency -> SEPARATOR + frequency)
+                .collect(Collectors.joining());
+    }
+}
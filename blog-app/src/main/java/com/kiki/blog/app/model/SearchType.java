@@ -0,0 +1,30 @@
+package com.kiki.blog.app.model;
+
+import com.kiki.blog.app.error.exception.InvalidRequestException;
+
+public enum SearchType {
+    POST("post"),
+    COMMENT("comment");
+
+    private final String value;
+
+    SearchType(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static SearchType fromValue(String value) throws InvalidRequestException {
+        if (value == null || value.equals("all")) {
+            return null;
+        }
+        for (SearchType type : values()) {
+            if (type.value.equals(value)) {
+                return type;
+            }
+        }
+        throw new InvalidRequestException("Invalid search type " + value);
+    }
+}
@@ -1,12 +1,64 @@
 package com.kiki.blog.app.repository;
 
 import com.kiki.blog.app.entity.CommentEntity;
+import com.kiki.blog.app.model.CommentSummary;
+import com.kiki.blog.app.model.IndexedText;
+import com.kiki.blog.app.model.LikeCount;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface CommentRepository extends CrudRepository<CommentEntity, UUID> {
+    @EntityGraph(attributePaths = {"user", "post", "post.user", "post.post", "post.post.user"})
     List<CommentEntity> findAllByPostId(UUID postId);
+
+    @Query("select c.id as id, c.content as content, c.datetime as datetime, u.id as userId, u.username as username, u.avatar as avatar, c.post.id as postId from CommentEntity c join c.user u where c.post.id = :postId")
+    List<CommentSummary> findSummariesByPostId(@Param("postId") UUID postId);
+
+    @Query("select c.id as id, c.content as content, c.datetime as datetime, u.id as userId, u.username as username, u.avatar as avatar, c.post.id as postId from CommentEntity c join c.user u where c.id = :id")
+    Optional<CommentSummary> findSummaryById(@Param("id") UUID id);
+
+    @Query("select c.id as id, c.content as content, c.datetime as datetime, u.id as userId, u.username as username, u.avatar as avatar, c.post.id as postId from CommentEntity c join c.user u where c.id in :ids")
+    List<CommentSummary> findSummariesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("select c.id as id, c.content as content, c.datetime as datetime, u.id as userId, u.username as username, u.avatar as avatar, c.post.id as postId from CommentEntity c join c.user u where u.id = :userId order by c.datetime, c.id")
+    Stream<CommentSummary> streamSummariesByUserId(@Param("userId") UUID userId);
+
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "500"), @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("select c.id as id, c.content as text from CommentEntity c")
+    Stream<IndexedText> streamAllText();
+
     CommentEntity findCommentEntityByIdAndUserId(UUID commentId, UUID userId);
+
+    @Query("select c.numLikes from CommentEntity c where c.id = :id")
+    Long findNumLikesById(@Param("id") UUID id);
+
+    @Query("select c.id as id, c.numLikes as numLikes from CommentEntity c where c.post.id = :postId")
+    List<LikeCount> findNumLikesByPostId(@Param("postId") UUID postId);
+
+    @Query("select c.id as id, c.numLikes as numLikes from CommentEntity c where c.id in :ids")
+    List<LikeCount> findNumLikesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Transactional
+    @Modifying
+    @Query("update CommentEntity c set c.numLikes = c.numLikes + :delta where c.id = :id")
+    int addNumLikes(@Param("id") UUID id, @Param("delta") long delta);
+
+    @Transactional
+    @Modifying
+    @Query("update CommentEntity c set c.numLikes = (select count(l) from LikeCommentEntity l where l.comment = c) " +
+            "where c.numLikes <> (select count(l) from LikeCommentEntity l where l.comment = c)")
+    int recountNumLikes();
 }
@@ -1,7 +1,11 @@
 package com.kiki.blog.app.repository;
 
 import com.kiki.blog.app.entity.FollowEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
@@ -9,5 +13,25 @@ import java.util.UUID;
 public interface FollowRepository extends CrudRepository<FollowEntity, UUID> {
     List<FollowEntity> findAllByToId(UUID toUserId);
     List<FollowEntity> findAllByFromId(UUID fromUserId);
-    FollowEntity findFollowEntityByFromIdAndToId(UUID fromUserId, UUID toUserId);
+
+    @Query("select count(f.from.id) from FollowEntity f where f.to.id = :toUserId")
+    long countAllByToId(@Param("toUserId") UUID toUserId);
+
+    @Query("select count(f.to.id) from FollowEntity f where f.from.id = :fromUserId and f.to.id = :toUserId")
+    long countByFromIdAndToId(@Param("fromUserId") UUID fromUserId, @Param("toUserId") UUID toUserId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from FollowEntity f where f.from.id = :fromUserId and f.to.id = :toUserId")
+    int deleteByFromIdAndToId(@Param("fromUserId") UUID fromUserId, @Param("toUserId") UUID toUserId);
+
+    @Query("select f.from.id from FollowEntity f where f.to.id = :toUserId")
+    List<UUID> findFromIdsByToId(@Param("toUserId") UUID toUserId);
+
+    @Query("select f.to.id from FollowEntity f where f.from.id = :fromUserId")
+    List<UUID> findToIdsByFromId(@Param("fromUserId") UUID fromUserId);
+
+    default boolean existsByFromIdAndToId(UUID fromUserId, UUID toUserId) {
+        return countByFromIdAndToId(fromUserId, toUserId) > 0;
+    }
 }
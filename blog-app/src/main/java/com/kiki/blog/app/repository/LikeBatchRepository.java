@@ -0,0 +1,84 @@
+package com.kiki.blog.app.repository;
+
+import com.kiki.blog.app.model.LikeKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public class LikeBatchRepository {
+    private static final String INSERT_POST_LIKES = "insert into like_post_entity (id, user_id, post_id) " +
+            "select ?, u.id, p.id from user_entity u cross join post_entity p where u.id = ? and p.id = ? " +
+            "on conflict do nothing";
+    private static final String DELETE_POST_LIKES = "delete from like_post_entity where user_id = ? and post_id = ?";
+    private static final String INSERT_COMMENT_LIKES = "insert into like_comment_entity (id, user_id, comment_id) " +
+            "select ?, u.id, c.id from user_entity u cross join comment_entity c where u.id = ? and c.id = ? " +
+            "on conflict do nothing";
+    private static final String DELETE_COMMENT_LIKES = "delete from like_comment_entity where user_id = ? and comment_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public LikeBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the likes that do not exist yet and whose user and target still exist, returning one update count per
+     * like so callers can tell the inserted rows from the ignored ones.
+     */
+    public int[] insertPostLikes(List<LikeKey> likes) {
+        return insert(INSERT_POST_LIKES, likes);
+    }
+
+    public int[] deletePostLikes(List<LikeKey> likes) {
+        return delete(DELETE_POST_LIKES, likes);
+    }
+
+    public int[] insertCommentLikes(List<LikeKey> likes) {
+        return insert(INSERT_COMMENT_LIKES, likes);
+    }
+
+    public int[] deleteCommentLikes(List<LikeKey> likes) {
+        return delete(DELETE_COMMENT_LIKES, likes);
+    }
+
+    private int[] insert(String sql, List<LikeKey> likes) {
+        return batch(sql, likes, (ps, like) -> {
+            ps.setObject(1, UUID.randomUUID());
+            ps.setObject(2, like.getUserId());
+            ps.setObject(3, like.getTargetId());
+        });
+    }
+
+    private int[] delete(String sql, List<LikeKey> likes) {
+        return batch(sql, likes, (ps, like) -> {
+            ps.setObject(1, like.getUserId());
+            ps.setObject(2, like.getTargetId());
+        });
+    }
+
+    private int[] batch(String sql, List<LikeKey> likes, ParameterizedPreparedStatementSetter<LikeKey> setter) {
+        if (likes.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                setter.setValues(ps, likes.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return likes.size();
+            }
+        });
+    }
+}
@@ -1,11 +1,13 @@
 package com.kiki.blog.app.repository;
 
 import com.kiki.blog.app.entity.LikeCommentEntity;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 import java.util.UUID;
 
 public interface LikeCommentRepository extends CrudRepository<LikeCommentEntity, UUID> {
-    LikeCommentEntity findLikeCommentEntityByUserIdAndCommentId(UUID userId, UUID commentId);
-    Integer countAllByCommentId(UUID commentId);
+    @Query("select count(l.user.id) from LikeCommentEntity l where l.comment.id = :commentId")
+    long countAllByCommentId(@Param("commentId") UUID commentId);
 }
@@ -1,11 +1,13 @@
 package com.kiki.blog.app.repository;
 
 import com.kiki.blog.app.entity.LikePostEntity;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 import java.util.UUID;
 
 public interface LikePostRepository extends CrudRepository<LikePostEntity, UUID> {
-    LikePostEntity findLikePostEntityByUserIdAndPostId(UUID userId, UUID postId);
-    Integer countAllByPostId(UUID postId);
+    @Query("select count(l.user.id) from LikePostEntity l where l.post.id = :postId")
+    long countAllByPostId(@Param("postId") UUID postId);
 }
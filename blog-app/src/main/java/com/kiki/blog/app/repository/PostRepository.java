@@ -1,14 +1,69 @@
 package com.kiki.blog.app.repository;
 
 import com.kiki.blog.app.entity.PostEntity;
+import com.kiki.blog.app.model.IndexedText;
+import com.kiki.blog.app.model.LikeCount;
+import com.kiki.blog.app.model.PostCursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface PostRepository extends PagingAndSortingRepository<PostEntity, UUID> {
+public interface PostRepository extends PagingAndSortingRepository<PostEntity, UUID>, PostRepositoryCustom {
+    @EntityGraph(attributePaths = {"user", "post", "post.user"})
     List<PostEntity> findAllByUserId(UUID userId);
+
+    @EntityGraph(attributePaths = {"user", "post", "post.user"})
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "500"), @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("select p from PostEntity p where p.user.id = :userId order by p.datetime, p.id")
+    Stream<PostEntity> streamAllByUserId(@Param("userId") UUID userId);
+
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "500"), @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("select p.id as id, concat(coalesce(p.title, ''), ' ', coalesce(p.content, '')) as text from PostEntity p")
+    Stream<IndexedText> streamAllText();
+
     PostEntity findPostEntityByIdAndUserId(UUID postId, UUID userId);
-}
 
+    @EntityGraph(attributePaths = {"user", "post", "post.user"})
+    List<PostEntity> findAllByIdIn(Collection<UUID> postIds);
+
+    @EntityGraph(attributePaths = {"user", "post", "post.user"})
+    Page<PostEntity> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "post", "post.user"})
+    @Query("select p from PostEntity p")
+    Slice<PostEntity> findLatest(Pageable pageable);
 
+    @EntityGraph(attributePaths = {"user", "post", "post.user"})
+    @Query("select p from PostEntity p where p.datetime < :datetime or (p.datetime = :datetime and p.id < :id)")
+    Slice<PostEntity> findLatestBefore(@Param("datetime") OffsetDateTime datetime, @Param("id") UUID id, Pageable pageable);
+
+    @Query("select new com.kiki.blog.app.model.PostCursor(p.datetime, p.id) from PostEntity p where p.user.id in :userIds")
+    List<PostCursor> findCursorsByUserIdIn(@Param("userIds") Collection<UUID> userIds, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "post", "post.user"})
+    @Query("select p from PostEntity p where p.user.id in (select f.to.id from FollowEntity f where f.from.id = :userId)")
+    Slice<PostEntity> findFeed(@Param("userId") UUID userId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "post", "post.user"})
+    @Query("select p from PostEntity p where p.user.id in (select f.to.id from FollowEntity f where f.from.id = :userId) " +
+            "and (p.datetime < :datetime or (p.datetime = :datetime and p.id < :id))")
+    Slice<PostEntity> findFeedBefore(@Param("userId") UUID userId, @Param("datetime") OffsetDateTime datetime, @Param("id") UUID id, Pageable pageable);
+
+    @Query("select p.numLikes from PostEntity p where p.id = :id")
+    Long findNumLikesById(@Param("id") UUID id);
+
+    @Query("select p.id as id, p.numLikes as numLikes from PostEntity p where p.id in :ids")
+    List<LikeCount> findNumLikesByIdIn(@Param("ids") Collection<UUID> ids);
+}
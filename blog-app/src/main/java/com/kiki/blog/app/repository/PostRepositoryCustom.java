@@ -0,0 +1,9 @@
+package com.kiki.blog.app.repository;
+
+import java.util.UUID;
+
+public interface PostRepositoryCustom {
+    int addNumLikes(UUID id, long delta);
+
+    int recountNumLikes();
+}
@@ -0,0 +1,40 @@
+package com.kiki.blog.app.repository;
+
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.UUID;
+
+public class PostRepositoryCustomImpl implements PostRepositoryCustom {
+    private static final String LIKE_COUNTER_SPACE = "post_like_counter";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * A bulk JPQL update would evict the whole PostEntity cache region, so the counter column, which is never read
+     * through the entity, is bumped natively against a query space no entity belongs to.
+     */
+    @Override
+    @Transactional
+    public int addNumLikes(UUID id, long delta) {
+        return entityManager.createNativeQuery("update post_entity set num_likes = num_likes + :delta where id = :id")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(LIKE_COUNTER_SPACE)
+                .setParameter("delta", delta)
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public int recountNumLikes() {
+        return entityManager.createNativeQuery("update post_entity p set num_likes = (select count(*) from like_post_entity l where l.post_id = p.id) " +
+                        "where num_likes <> (select count(*) from like_post_entity l where l.post_id = p.id)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(LIKE_COUNTER_SPACE)
+                .executeUpdate();
+    }
+}
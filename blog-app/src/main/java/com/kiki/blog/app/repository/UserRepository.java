@@ -1,10 +1,20 @@
 package com.kiki.blog.app.repository;
 
 import com.kiki.blog.app.entity.UserEntity;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
-public interface UserRepository extends CrudRepository<UserEntity, UUID> {
+public interface UserRepository extends CrudRepository<UserEntity, UUID>, UserRepositoryCustom {
     UserEntity findByUsername(String username);
+
+    List<UserEntity> findAllByIdIn(Collection<UUID> ids);
+
+    @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    Iterable<UserEntity> findAll();
 }
@@ -0,0 +1,9 @@
+package com.kiki.blog.app.repository;
+
+import com.kiki.blog.app.entity.UserEntity;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+    Optional<UserEntity> findByNaturalUsername(String username);
+}
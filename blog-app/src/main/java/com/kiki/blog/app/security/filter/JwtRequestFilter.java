@@ -1,6 +1,8 @@
 package com.kiki.blog.app.security.filter;
 
+import com.kiki.blog.app.security.model.VerifiedToken;
 import com.kiki.blog.app.security.service.JwtTokenService;
+import com.kiki.blog.app.security.service.PrincipalCache;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpHeaders;
@@ -25,10 +27,12 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final JwtTokenService jwtTokenService;
     private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
 
-    public JwtRequestFilter(JwtTokenService jwtTokenService, @Qualifier("blogUserService") UserDetailsService userDetailsService) {
+    public JwtRequestFilter(JwtTokenService jwtTokenService, @Qualifier("blogUserService") UserDetailsService userDetailsService, PrincipalCache principalCache) {
         this.jwtTokenService = jwtTokenService;
         this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -37,13 +41,14 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
-            String username = jwtTokenService.extractUsername(token);
+            VerifiedToken verifiedToken = jwtTokenService.verify(token);
+            String username = verifiedToken.getUsername();
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 UserDetails userDetails;
                 try {
-                    userDetails = userDetailsService.loadUserByUsername(username);
-                    if (jwtTokenService.validateToken(token, userDetails)) {
+                    userDetails = principalCache.get(username, token, userDetailsService::loadUserByUsername);
+                    if (jwtTokenService.validateToken(verifiedToken, userDetails)) {
                         UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                         authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                         SecurityContextHolder.getContext().setAuthentication(authenticationToken);
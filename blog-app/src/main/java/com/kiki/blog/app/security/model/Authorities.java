@@ -0,0 +1,37 @@
+package com.kiki.blog.app.security.model;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Parses comma separated role strings into immutable authority sets, shared by every principal with the same roles.
+ */
+public final class Authorities {
+    public static final GrantedAuthority ADMIN = new SimpleGrantedAuthority("ROLE_ADMIN");
+
+    private static final Map<String, Set<GrantedAuthority>> INTERNED = new ConcurrentHashMap<>();
+
+    private Authorities() {
+    }
+
+    public static Set<GrantedAuthority> of(String roles) {
+        if (roles == null) {
+            return Set.of();
+        }
+        return INTERNED.computeIfAbsent(roles, Authorities::parse);
+    }
+
+    private static Set<GrantedAuthority> parse(String roles) {
+        return Arrays.stream(roles.split(","))
+                .map(String::trim)
+                .filter(role -> !role.isEmpty())
+                .map(role -> role.equals(ADMIN.getAuthority()) ? ADMIN : new SimpleGrantedAuthority(role))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
@@ -2,24 +2,28 @@ package com.kiki.blog.app.security.model;
 
 import com.kiki.blog.app.entity.UserEntity;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 public class BlogUserDetail implements UserDetails {
 
     private final UserEntity user;
+    private final String uid;
+    private final Set<GrantedAuthority> authorities;
+    private final boolean admin;
 
     public BlogUserDetail(UserEntity userEntity) {
         this.user = userEntity;
+        this.uid = userEntity.getId().toString();
+        this.authorities = Authorities.of(userEntity.getRoles());
+        this.admin = authorities.contains(Authorities.ADMIN);
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Arrays.stream(user.getRoles().split(",")).map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+        return authorities;
     }
 
     @Override
@@ -53,6 +57,14 @@ public class BlogUserDetail implements UserDetails {
     }
 
     public String getUid() {
-        return user.getId().toString();
+        return uid;
+    }
+
+    public boolean isAdmin() {
+        return admin;
+    }
+
+    public boolean canAccess(String userId) {
+        return admin || uid.equals(userId);
     }
 }
@@ -0,0 +1,14 @@
+package com.kiki.blog.app.security.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Date;
+
+@Data
+@AllArgsConstructor
+public class VerifiedToken {
+    private String username;
+    private String uid;
+    private Date expiration;
+}
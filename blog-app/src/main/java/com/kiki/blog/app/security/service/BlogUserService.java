@@ -1,6 +1,5 @@
 package com.kiki.blog.app.security.service;
 
-import com.kiki.blog.app.entity.UserEntity;
 import com.kiki.blog.app.repository.UserRepository;
 import com.kiki.blog.app.security.model.BlogUserDetail;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,11 +20,8 @@ public class BlogUserService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String s) throws UsernameNotFoundException {
-        UserEntity user = userRepository.findByUsername(s);
-        if (user != null) {
-            return new BlogUserDetail(user);
-        } else {
-            throw new UsernameNotFoundException("User not found");
-        }
+        return userRepository.findByNaturalUsername(s)
+                .map(BlogUserDetail::new)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
 }
@@ -1,53 +1,95 @@
 package com.kiki.blog.app.security.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.kiki.blog.app.security.model.BlogUserDetail;
+import com.kiki.blog.app.security.model.VerifiedToken;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.TextCodec;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JwtTokenService {
-    private final String SECRET_KEY = "com.kiki.blog";
+    private static final String SECRET_KEY = "com.kiki.blog";
+    private static final String UID_CLAIM = "uid";
+    private static final SignatureAlgorithm ALGORITHM = SignatureAlgorithm.HS512;
 
-    public String generateToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername());
-    }
+    private final Key signingKey = new SecretKeySpec(TextCodec.BASE64.decode(SECRET_KEY), ALGORITHM.getJcaName());
+    private final JwtParser parser = Jwts.parser().setSigningKey(signingKey);
+    private final Cache<String, VerifiedToken> verified;
 
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+    public JwtTokenService(@Value("${security.token-cache.max-size:10000}") long maxSize) {
+        this.verified = maxSize > 0
+                ? Caffeine.newBuilder().maximumSize(maxSize).expireAfter(new UntilExpiration()).build()
+                : null;
     }
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    public String generateToken(UserDetails userDetails) {
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof BlogUserDetail) {
+            claims.put(UID_CLAIM, ((BlogUserDetail) userDetails).getUid());
+        }
+        return createToken(claims, userDetails.getUsername());
     }
 
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    /**
+     * Parses and verifies the token once, throwing a JwtException when it is malformed, forged or expired. Tokens
+     * verified before are served from memory until they expire.
+     */
+    public VerifiedToken verify(String token) {
+        return verified == null ? parse(token) : verified.get(token, this::parse);
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsTFunction) {
-        return claimsTFunction.apply(extractAllClaims(token));
+    public Boolean validateToken(VerifiedToken token, UserDetails userDetails) {
+        return token.getUsername().equals(userDetails.getUsername())
+                && validateUid(token.getUid(), userDetails)
+                && !token.getExpiration().before(new Date());
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser().setSigningKey(SECRET_KEY).parseClaimsJws(token).getBody();
+    private VerifiedToken parse(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        return new VerifiedToken(claims.getSubject(), claims.get(UID_CLAIM, String.class), claims.getExpiration());
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private Boolean validateUid(String uid, UserDetails userDetails) {
+        return uid == null || (userDetails instanceof BlogUserDetail && uid.equals(((BlogUserDetail) userDetails).getUid()));
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder().setClaims(claims).setSubject(subject).setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000*60*60*2)).signWith(SignatureAlgorithm.HS512, SECRET_KEY)
+                .setExpiration(new Date(System.currentTimeMillis() + 1000*60*60*2)).signWith(ALGORITHM, signingKey)
                 .compact();
     }
+
+    private static class UntilExpiration implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String token, VerifiedToken verifiedToken, long currentTime) {
+            long remaining = verifiedToken.getExpiration() == null
+                    ? 0 : verifiedToken.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remaining));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, VerifiedToken verifiedToken, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String token, VerifiedToken verifiedToken, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
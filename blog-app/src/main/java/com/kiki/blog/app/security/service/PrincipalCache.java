@@ -0,0 +1,39 @@
+package com.kiki.blog.app.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kiki.blog.app.security.model.BlogUserDetail;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+@Service
+public class PrincipalCache {
+
+    private final Cache<String, UserDetails> cache;
+
+    public PrincipalCache(
+            @Value("${security.principal-cache.max-size:10000}") long maxSize,
+            @Value("${security.principal-cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public UserDetails get(String username, String token, Function<String, UserDetails> loader) {
+        return cache.get(username + ":" + signature(token), key -> loader.apply(username));
+    }
+
+    public void invalidateUser(String userId) {
+        cache.asMap().values().removeIf(userDetails ->
+                userDetails instanceof BlogUserDetail && ((BlogUserDetail) userDetails).getUid().equals(userId));
+    }
+
+    private String signature(String token) {
+        return token.substring(token.lastIndexOf('.') + 1);
+    }
+}
@@ -4,48 +4,67 @@ import com.kiki.blog.app.entity.CommentEntity;
 import com.kiki.blog.app.entity.PostEntity;
 import com.kiki.blog.app.entity.UserEntity;
 import com.kiki.blog.app.error.exception.EntityNotFoundException;
+import com.kiki.blog.app.error.exception.InvalidRequestException;
+import com.kiki.blog.app.mapper.BlogMapper;
+import com.kiki.blog.app.model.IdBatch;
 import com.kiki.blog.app.repository.CommentRepository;
-import com.kiki.blog.app.repository.LikeCommentRepository;
 import com.kiki.blog.openapi.model.Comment;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 public class CommentService {
+    public static final String COMMENTS_CACHE = "comments";
+    private static final String COMPACT_VIEW = "compact";
+
     private final CommentRepository commentRepository;
-    private final LikeCommentRepository likeCommentRepository;
-    private final ModelMapper mapper = new ModelMapper();
+    private final LikeIngestionService likeIngestionService;
+    private final SearchService searchService;
+    private final BlogMapper mapper;
 
     @Autowired
-    public CommentService(CommentRepository commentRepository, LikeCommentRepository likeCommentRepository) {
+    public CommentService(CommentRepository commentRepository, LikeIngestionService likeIngestionService, SearchService searchService, BlogMapper mapper) {
         this.commentRepository = commentRepository;
-        this.likeCommentRepository = likeCommentRepository;
+        this.likeIngestionService = likeIngestionService;
+        this.searchService = searchService;
+        this.mapper = mapper;
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = COMMENTS_CACHE, key = "#postId + ':full'"),
+            @CacheEvict(cacheNames = COMMENTS_CACHE, key = "#postId + ':compact'")
+    })
     public Comment postComment(String userId, String postId, Comment comment) throws EntityNotFoundException {
         UserEntity user = new UserEntity();
         user.setId(UUID.fromString(userId));
         PostEntity post = new PostEntity();
         post.setId(UUID.fromString(postId));
+        CommentEntity newComment = mapper.toCommentEntity(comment);
+        newComment.setUser(user);
+        newComment.setPost(post);
+        newComment.setDatetime(OffsetDateTime.now());
         try {
-            CommentEntity newComment = mapper.map(comment, CommentEntity.class);
-            newComment.setUser(user);
-            newComment.setPost(post);
-            newComment.setDatetime(OffsetDateTime.now());
             newComment = commentRepository.save(newComment);
-            return mapper.map(newComment, Comment.class);
         } catch (Exception e) {
             throw new EntityNotFoundException("Post " + userId + " not found");
         }
+        searchService.indexComment(newComment);
+        return mapper.toComment(newComment);
     }
 
+    @CacheEvict(cacheNames = COMMENTS_CACHE, allEntries = true)
     public Comment updateComment(String userId, String commentId, Comment comment) throws EntityNotFoundException {
         UserEntity user = new UserEntity();
         user.setId(UUID.fromString(userId));
@@ -56,37 +75,66 @@ public class CommentService {
             newComment.setContent(comment.getContent());
         }
         try {
-            return mapper.map(commentRepository.save(newComment), Comment.class);
+            newComment = commentRepository.save(newComment);
         } catch (Exception e) {
             throw new EntityNotFoundException("Comment with ID " + commentId + " and user " + userId + " not found");
         }
+        searchService.indexComment(newComment);
+        return mapper.toComment(newComment);
     }
 
-    public Comment getComment(String commentId) throws EntityNotFoundException {
-        Optional<CommentEntity> comment = commentRepository.findById(UUID.fromString(commentId));
+    @Transactional(readOnly = true)
+    public Comment getComment(String commentId, String view) throws EntityNotFoundException {
+        UUID id = UUID.fromString(commentId);
+        Optional<Comment> comment = COMPACT_VIEW.equals(view)
+                ? commentRepository.findSummaryById(id).map(commentSummary -> mapper.toComment(commentSummary))
+                : commentRepository.findById(id).map(commentEntity -> mapper.toComment(commentEntity));
         if (comment.isEmpty()) {
             throw new EntityNotFoundException("Comment with ID " + commentId + " not found");
         } else {
-            return mapper.map(comment.get(), Comment.class);
+            return comment.get();
         }
     }
 
-    public List<Comment> getComments(String postId) {
-        return commentRepository.findAllByPostId(UUID.fromString(postId))
+    @Cacheable(cacheNames = COMMENTS_CACHE, key = "#postId + ':' + #view", condition = "#view == 'full' or #view == 'compact'", sync = true)
+    @Transactional(readOnly = true)
+    public List<Comment> getComments(String postId, String view) {
+        UUID id = UUID.fromString(postId);
+        if (COMPACT_VIEW.equals(view)) {
+            return commentRepository.findSummariesByPostId(id)
+                    .stream()
+                    .map(commentSummary -> mapper.toComment(commentSummary))
+                    .collect(Collectors.toList());
+        }
+        return commentRepository.findAllByPostId(id)
                 .stream()
-                .map(commentEntity -> mapper.map(commentEntity, Comment.class))
+                .map(commentEntity -> mapper.toComment(commentEntity))
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public Integer getCommentLikes(String commentId) {
-        return likeCommentRepository.countAllByCommentId(UUID.fromString(commentId));
+        return likeIngestionService.getCommentLikes(UUID.fromString(commentId));
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Integer> getCommentsLikes(List<String> commentIds) throws InvalidRequestException {
+        Set<UUID> ids = IdBatch.parse(commentIds);
+        return IdBatch.byId(ids, likeIngestionService.getCommentLikes(ids));
+    }
+
+    @Transactional(readOnly = true)
+    public Map<UUID, Integer> getCommentLikesByPostId(String postId) {
+        return likeIngestionService.getCommentLikesByPostId(UUID.fromString(postId));
     }
 
+    @CacheEvict(cacheNames = COMMENTS_CACHE, allEntries = true)
     public void deleteComment(String userId, String commentId) throws EntityNotFoundException {
         try {
             commentRepository.delete(commentRepository.findCommentEntityByIdAndUserId(UUID.fromString(commentId), UUID.fromString(userId)));
         } catch (Exception e) {
             throw new EntityNotFoundException("Comment with ID " + commentId + " and user " + userId + " not found");
         }
+        searchService.removeComment(UUID.fromString(commentId));
     }
 }
@@ -0,0 +1,72 @@
+package com.kiki.blog.app.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.kiki.blog.app.entity.PostEntity;
+import com.kiki.blog.app.mapper.BlogMapper;
+import com.kiki.blog.app.model.CommentSummary;
+import com.kiki.blog.app.repository.CommentRepository;
+import com.kiki.blog.app.repository.PostRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@Service
+public class ExportService {
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final BlogMapper mapper;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final EntityManager entityManager;
+
+    @Autowired
+    public ExportService(PostRepository postRepository, CommentRepository commentRepository, BlogMapper mapper, ObjectMapper objectMapper, EntityManager entityManager) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.mapper = mapper;
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.entityManager = entityManager;
+    }
+
+    @Transactional(readOnly = true)
+    public void exportUser(String userId, OutputStream outputStream) throws IOException {
+        UUID id = UUID.fromString(userId);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.setRootValueSeparator(null);
+            try (Stream<PostEntity> posts = postRepository.streamAllByUserId(id)) {
+                Iterator<PostEntity> iterator = posts.iterator();
+                while (iterator.hasNext()) {
+                    PostEntity post = iterator.next();
+                    write(generator, "post", mapper.toPost(post));
+                    entityManager.detach(post);
+                    if (post.getPost() != null) {
+                        entityManager.detach(post.getPost());
+                    }
+                }
+            }
+            try (Stream<CommentSummary> comments = commentRepository.streamSummariesByUserId(id)) {
+                Iterator<CommentSummary> iterator = comments.iterator();
+                while (iterator.hasNext()) {
+                    write(generator, "comment", mapper.toComment(iterator.next()));
+                }
+            }
+        }
+    }
+
+    private void write(JsonGenerator generator, String type, Object value) throws IOException {
+        writer.writeValue(generator, Map.of(type, value));
+        generator.writeRaw('\n');
+    }
+}
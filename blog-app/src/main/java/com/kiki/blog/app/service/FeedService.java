@@ -0,0 +1,219 @@
+package com.kiki.blog.app.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.kiki.blog.app.entity.PostEntity;
+import com.kiki.blog.app.error.exception.InvalidRequestException;
+import com.kiki.blog.app.mapper.BlogMapper;
+import com.kiki.blog.app.model.PostCursor;
+import com.kiki.blog.app.repository.FollowRepository;
+import com.kiki.blog.app.repository.PostRepository;
+import com.kiki.blog.openapi.model.Post;
+import com.kiki.blog.openapi.model.PostSlice;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class FeedService {
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "datetime", "id");
+
+    private final FollowRepository followRepository;
+    private final PostRepository postRepository;
+    private final int timelineSize;
+    private final long fanoutLimit;
+    private final Cache<UUID, Timeline> timelines;
+    private final Cache<UUID, Timeline> pulledAuthors;
+    private final BlogMapper mapper;
+
+    @Autowired
+    public FeedService(
+            FollowRepository followRepository,
+            PostRepository postRepository,
+            BlogMapper mapper,
+            @Value("${feed.timeline-size:800}") int timelineSize,
+            @Value("${feed.fanout-limit:10000}") long fanoutLimit,
+            @Value("${feed.max-timelines:100000}") long maxTimelines,
+            @Value("${feed.timeline-ttl:10m}") Duration timelineTtl,
+            @Value("${feed.max-pulled-authors:10000}") long maxPulledAuthors) {
+        this.followRepository = followRepository;
+        this.postRepository = postRepository;
+        this.mapper = mapper;
+        this.timelineSize = timelineSize;
+        this.fanoutLimit = fanoutLimit;
+        this.timelines = Caffeine.newBuilder()
+                .maximumSize(maxTimelines)
+                .expireAfterWrite(timelineTtl)
+                .build();
+        // Every publish rewrites the author's entry, so it outlives any timeline materialized before its posts. An
+        // entry evicted for size takes posts no timeline holds with it, and they all have to be rebuilt.
+        this.pulledAuthors = Caffeine.newBuilder()
+                .maximumSize(maxPulledAuthors)
+                .expireAfterWrite(timelineTtl)
+                .<UUID, Timeline>evictionListener((authorId, timeline, cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        timelines.invalidateAll();
+                    }
+                })
+                .build();
+    }
+
+    public void publish(PostEntity post) {
+        UUID authorId = post.getUser().getId();
+        PostCursor cursor = PostCursor.of(post);
+        if (followRepository.countAllByToId(authorId) > fanoutLimit) {
+            pulledAuthors.asMap().compute(authorId, (id, timeline) -> {
+                Timeline author = timeline == null ? new Timeline(timelineSize, Set.of()) : timeline;
+                author.add(cursor);
+                return author;
+            });
+            return;
+        }
+        for (UUID followerId : followRepository.findFromIdsByToId(authorId)) {
+            Timeline timeline = timelines.getIfPresent(followerId);
+            if (timeline != null) {
+                timeline.add(cursor);
+            }
+        }
+    }
+
+    public void invalidate(String userId) {
+        timelines.invalidate(UUID.fromString(userId));
+    }
+
+    public PostSlice getFeed(String userId, String cursor, Integer pageSize) throws InvalidRequestException {
+        UUID id = UUID.fromString(userId);
+        PostCursor after = cursor == null ? null : PostCursor.decode(cursor);
+
+        List<PostCursor> page = timelines.get(id, this::materialize).page(after, pageSize + 1, pulledAuthors::getIfPresent);
+        if (page == null) {
+            return pull(id, after, pageSize);
+        }
+        if (page.isEmpty()) {
+            return new PostSlice().posts(new ArrayList<>());
+        }
+
+        Map<UUID, PostEntity> posts = postRepository.findAllByIdIn(page.stream().map(PostCursor::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(PostEntity::getId, Function.identity()));
+        PostSlice result = new PostSlice().posts(page.stream()
+                .limit(pageSize)
+                .map(postCursor -> posts.get(postCursor.getId()))
+                .filter(Objects::nonNull)
+                .map(postEntity -> mapper.toPost(postEntity))
+                .collect(Collectors.toList()));
+        if (page.size() > pageSize) {
+            result.setNextCursor(page.get(pageSize - 1).encode());
+        }
+        return result;
+    }
+
+    private PostSlice pull(UUID userId, PostCursor after, Integer pageSize) {
+        Pageable paging = PageRequest.of(0, pageSize, NEWEST_FIRST);
+        Slice<PostEntity> slice = after == null
+                ? postRepository.findFeed(userId, paging)
+                : postRepository.findFeedBefore(userId, after.getDatetime(), after.getId(), paging);
+
+        List<PostEntity> content = slice.getContent();
+        PostSlice result = new PostSlice().posts(content
+                .stream()
+                .map(postEntity -> mapper.toPost(postEntity))
+                .collect(Collectors.toList()));
+        if (slice.hasNext()) {
+            result.setNextCursor(PostCursor.of(content.get(content.size() - 1)).encode());
+        }
+        return result;
+    }
+
+    private Timeline materialize(UUID userId) {
+        Set<UUID> followees = Set.copyOf(followRepository.findToIdsByFromId(userId));
+        Timeline timeline = new Timeline(timelineSize, followees);
+        if (!followees.isEmpty()) {
+            List<PostCursor> latest = postRepository.findCursorsByUserIdIn(followees, PageRequest.of(0, timelineSize + 1, NEWEST_FIRST));
+            latest.forEach(timeline::add);
+        }
+        return timeline;
+    }
+
+    private static class Timeline {
+        private final NavigableSet<PostCursor> entries = new ConcurrentSkipListSet<>(PostCursor.NEWEST_FIRST);
+        private final AtomicInteger size = new AtomicInteger();
+        private final int capacity;
+        private final Set<UUID> followees;
+        private volatile boolean truncated;
+
+        Timeline(int capacity, Set<UUID> followees) {
+            this.capacity = capacity;
+            this.followees = followees;
+        }
+
+        void add(PostCursor cursor) {
+            if (entries.add(cursor) && size.incrementAndGet() > capacity && entries.pollLast() != null) {
+                size.decrementAndGet();
+                truncated = true;
+            }
+        }
+
+        /**
+         * Merges this timeline with the recent posts of followed authors that are not fanned out, returning null when
+         * a bounded timeline can no longer vouch for the requested range and the caller has to pull from the database.
+         */
+        List<PostCursor> page(PostCursor after, int limit, Function<UUID, Timeline> pulledAuthors) {
+            NavigableSet<PostCursor> merged = new TreeSet<>(PostCursor.NEWEST_FIRST);
+            PostCursor floor = collect(after, limit, merged, null);
+            for (UUID followee : followees) {
+                Timeline author = pulledAuthors.apply(followee);
+                if (author != null) {
+                    floor = author.collect(after, limit, merged, floor);
+                }
+            }
+
+            List<PostCursor> page = new ArrayList<>(limit);
+            for (PostCursor cursor : merged) {
+                if (page.size() == limit || (floor != null && PostCursor.NEWEST_FIRST.compare(cursor, floor) > 0)) {
+                    break;
+                }
+                page.add(cursor);
+            }
+            return page.size() < limit && floor != null ? null : page;
+        }
+
+        private PostCursor collect(PostCursor after, int limit, Collection<PostCursor> merged, PostCursor floor) {
+            Iterable<PostCursor> source = after == null ? entries : entries.tailSet(after, false);
+            int count = 0;
+            for (PostCursor cursor : source) {
+                if (count++ == limit) {
+                    break;
+                }
+                merged.add(cursor);
+            }
+            if (truncated && !entries.isEmpty()) {
+                PostCursor last = entries.last();
+                if (floor == null || PostCursor.NEWEST_FIRST.compare(last, floor) < 0) {
+                    return last;
+                }
+            }
+            return floor;
+        }
+    }
+}
@@ -1,49 +1,190 @@
 package com.kiki.blog.app.service;
 
 import com.kiki.blog.app.error.exception.FileNotFoundException;
+import com.kiki.blog.app.error.exception.InvalidRequestException;
+import com.kiki.blog.app.model.ImageVariant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.List;
-import java.util.Objects;
-import java.util.UUID;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
 
 @Service
 public class ImageService {
 
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final Pattern EXTENSION = Pattern.compile("[A-Za-z0-9]{1,10}");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] GIF = {'G', 'I', 'F', '8'};
+    private static final byte[] RIFF = {'R', 'I', 'F', 'F'};
+    private static final byte[] BMP = {'B', 'M'};
+
     private final Path fileStorageLocation;
+    private final long maxSize;
+    private final ImageVariantService imageVariantService;
 
-    public ImageService() throws IOException {
-        this.fileStorageLocation = Paths.get("images").toAbsolutePath().normalize();
+    public ImageService(
+            @Value("${image.storage-location:images}") String storageLocation,
+            @Value("${image.max-size:200MB}") DataSize maxSize,
+            ImageVariantService imageVariantService) throws IOException {
+        this.fileStorageLocation = Paths.get(storageLocation).toAbsolutePath().normalize();
+        this.maxSize = maxSize.toBytes();
+        this.imageVariantService = imageVariantService;
         Files.createDirectories(this.fileStorageLocation);
     }
 
-    public String storeFile(MultipartFile file) throws IOException {
-        String fileName = UUID.randomUUID() + "." + List.of(Objects.requireNonNull(file.getOriginalFilename()).split("\\.")).get(1);
-        Path targetLocation = this.fileStorageLocation.resolve(fileName);
-        Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+    public String storeFile(MultipartFile file) throws IOException, InvalidRequestException {
+        try (InputStream inputStream = file.getInputStream()) {
+            return store(inputStream, getExtension(file.getOriginalFilename()));
+        }
+    }
 
-        return fileName;
+    public String storeStream(InputStream inputStream, long contentLength) throws IOException, InvalidRequestException {
+        if (contentLength > maxSize) {
+            throw new InvalidRequestException("Image exceeds " + maxSize + " bytes");
+        }
+        return store(inputStream, null);
     }
 
     public Resource loadFile(String fileName) throws FileNotFoundException {
+        return new FileSystemResource(resolveFile(fileName));
+    }
+
+    public Optional<Resource> loadVariant(String fileName, ImageVariant variant) throws FileNotFoundException {
+        Path variantPath = imageVariantService.resolve(resolveFile(fileName), variant);
+        return Files.isRegularFile(variantPath) ? Optional.of(new FileSystemResource(variantPath)) : Optional.empty();
+    }
+
+    public String getETag(String fileName, ImageVariant variant) {
+        String eTag = StringUtils.stripFilenameExtension(fileName);
+        return "\"" + (variant == null ? eTag : eTag + "-" + variant.getValue()) + "\"";
+    }
+
+    private String store(InputStream inputStream, String fallbackExtension) throws IOException, InvalidRequestException {
+        Path tempFile = Files.createTempFile(this.fileStorageLocation, "upload", ".tmp");
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-            if(resource.exists()) {
-                return resource;
-            } else {
-                throw new FileNotFoundException("File not found " + fileName);
+            MessageDigest digest = sha256();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            String extension = null;
+            long size = 0;
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                int read;
+                while ((read = inputStream.readNBytes(buffer, 0, buffer.length)) > 0) {
+                    if (size == 0) {
+                        extension = sniffExtension(buffer, read);
+                    }
+                    size += read;
+                    if (size > maxSize) {
+                        throw new InvalidRequestException("Image exceeds " + maxSize + " bytes");
+                    }
+                    digest.update(buffer, 0, read);
+                    ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                    while (byteBuffer.hasRemaining()) {
+                        channel.write(byteBuffer);
+                    }
+                }
+            }
+            if (extension == null) {
+                if (fallbackExtension == null) {
+                    throw new InvalidRequestException("Unsupported image type");
+                }
+                extension = fallbackExtension;
+            }
+
+            String fileName = toHex(digest.digest()) + extension;
+            Path targetLocation = this.fileStorageLocation.resolve(fileName);
+            if (Files.notExists(targetLocation)) {
+                try {
+                    Files.move(tempFile, targetLocation, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // stored concurrently by an identical upload
+                }
+            }
+            imageVariantService.generate(targetLocation);
+            return fileName;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private Path resolveFile(String fileName) throws FileNotFoundException {
+        Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
+        if (!filePath.getParent().equals(this.fileStorageLocation) || !Files.isRegularFile(filePath)) {
+            throw new FileNotFoundException("File not found " + fileName);
+        }
+        return filePath;
+    }
+
+    private static String getExtension(String fileName) {
+        String extension = StringUtils.getFilenameExtension(fileName);
+        if (extension == null || !EXTENSION.matcher(extension).matches()) {
+            return "";
+        }
+        return "." + extension.toLowerCase(Locale.ROOT);
+    }
+
+    private static String sniffExtension(byte[] header, int length) {
+        if (startsWith(header, length, PNG)) {
+            return ".png";
+        } else if (startsWith(header, length, JPEG)) {
+            return ".jpg";
+        } else if (startsWith(header, length, GIF)) {
+            return ".gif";
+        } else if (startsWith(header, length, RIFF) && length >= 12
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return ".webp";
+        } else if (startsWith(header, length, BMP)) {
+            return ".bmp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] header, int length, byte[] magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header[i] != magic[i]) {
+                return false;
             }
-        } catch (Exception ex) {
-            throw new FileNotFoundException("File not found: " + fileName);
         }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
     }
 }
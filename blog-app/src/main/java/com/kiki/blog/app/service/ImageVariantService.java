@@ -0,0 +1,162 @@
+package com.kiki.blog.app.service;
+
+import com.kiki.blog.app.model.ImageVariant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class ImageVariantService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+    private static final Set<String> OPAQUE_FORMATS = Set.of("jpg", "jpeg", "bmp");
+
+    private final ThreadPoolTaskExecutor executor;
+
+    public ImageVariantService(
+            @Value("${image.variants.pool-size:2}") int poolSize,
+            @Value("${image.variants.queue-capacity:100}") int queueCapacity) {
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(poolSize);
+        this.executor.setMaxPoolSize(poolSize);
+        this.executor.setQueueCapacity(queueCapacity);
+        this.executor.setThreadNamePrefix("image-variant-");
+        this.executor.initialize();
+    }
+
+    public Path resolve(Path original, ImageVariant variant) {
+        return original.resolveSibling(variant.getValue()).resolve(original.getFileName());
+    }
+
+    public void generate(Path original) {
+        List<ImageVariant> missing = Arrays.stream(ImageVariant.values())
+                .filter(variant -> Files.notExists(resolve(original, variant)))
+                .collect(Collectors.toList());
+        if (missing.isEmpty()) {
+            return;
+        }
+        try {
+            executor.execute(() -> createVariants(original, missing));
+        } catch (TaskRejectedException e) {
+            logger.warn("Image variant queue is full, serving originals for {}", original.getFileName());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void createVariants(Path original, List<ImageVariant> variants) {
+        String format = StringUtils.getFilenameExtension(original.getFileName().toString());
+        if (format == null) {
+            return;
+        }
+        try {
+            BufferedImage image = read(original, variants.get(0).getMaxDimension());
+            if (image == null) {
+                return;
+            }
+            for (ImageVariant variant : variants) {
+                if (Math.max(image.getWidth(), image.getHeight()) <= variant.getMaxDimension()) {
+                    link(original, resolve(original, variant));
+                    continue;
+                }
+                image = scale(image, variant.getMaxDimension(), OPAQUE_FORMATS.contains(format.toLowerCase(Locale.ROOT)));
+                write(image, format, resolve(original, variant));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to create image variants for {}", original.getFileName(), e);
+        }
+    }
+
+    private BufferedImage read(Path source, int maxDimension) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int subsampling = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / (maxDimension * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage image, int maxDimension, boolean opaque) {
+        double ratio = (double) maxDimension / Math.max(image.getWidth(), image.getHeight());
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        int type = opaque || !image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+
+        BufferedImage scaled = new BufferedImage(width, height, type);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * An image already within a variant's size is its own variant. It is linked at the variant's path so the variant
+     * exists, and is served as immutable, like a scaled one; copied where the file system has no hard links.
+     */
+    private void link(Path original, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path tempFile = target.resolveSibling(target.getFileName() + ".tmp" + System.nanoTime());
+        try {
+            try {
+                Files.createLink(tempFile, original);
+            } catch (UnsupportedOperationException | IOException e) {
+                Files.copy(original, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private void write(BufferedImage image, String format, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path tempFile = Files.createTempFile(target.getParent(), "variant", ".tmp");
+        try {
+            if (ImageIO.write(image, format, tempFile.toFile())) {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.kiki.blog.app.service;
+
+import com.kiki.blog.app.model.LikeCount;
+import com.kiki.blog.app.repository.CommentRepository;
+import com.kiki.blog.app.repository.PostRepository;
+import com.kiki.blog.openapi.model.LikeRecount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+@Service
+public class LikeCounterService {
+    private static final Logger logger = LoggerFactory.getLogger(LikeCounterService.class);
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PendingCounts postLikes = new PendingCounts();
+    private final PendingCounts commentLikes = new PendingCounts();
+
+    @Autowired
+    public LikeCounterService(PostRepository postRepository, CommentRepository commentRepository, TransactionTemplate transactionTemplate) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public void addPostLikes(UUID postId, long delta) {
+        postLikes.add(postId, delta);
+    }
+
+    public void addCommentLikes(UUID commentId, long delta) {
+        commentLikes.add(commentId, delta);
+    }
+
+    public Integer getPostLikes(UUID postId) {
+        return postLikes.read(() -> withPending(postRepository.findNumLikesById(postId), postId, postLikes));
+    }
+
+    public Integer getCommentLikes(UUID commentId) {
+        return commentLikes.read(() -> withPending(commentRepository.findNumLikesById(commentId), commentId, commentLikes));
+    }
+
+    public Map<UUID, Integer> getPostLikes(Collection<UUID> postIds) {
+        return postLikes.read(() -> withPending(postRepository.findNumLikesByIdIn(postIds), postLikes));
+    }
+
+    public Map<UUID, Integer> getCommentLikes(Collection<UUID> commentIds) {
+        return commentLikes.read(() -> withPending(commentRepository.findNumLikesByIdIn(commentIds), commentLikes));
+    }
+
+    public Map<UUID, Integer> getCommentLikesByPostId(UUID postId) {
+        return commentLikes.read(() -> withPending(commentRepository.findNumLikesByPostId(postId), commentLikes));
+    }
+
+    /**
+     * Pending deltas only live in memory, so the ones not flushed before a process died are lost. This sets every
+     * counter that disagrees with its like rows back to the number of rows. A delta still pending on any instance is
+     * counted twice once flushed, so likes have to be paused everywhere while it runs; this instance's are flushed
+     * first.
+     */
+    public synchronized LikeRecount recount() {
+        flush();
+        LikeRecount recount = transactionTemplate.execute(status -> new LikeRecount()
+                .posts(postRepository.recountNumLikes())
+                .comments(commentRepository.recountNumLikes()));
+        logger.info("Recounted likes of {} posts and {} comments", recount.getPosts(), recount.getComments());
+        return recount;
+    }
+
+    @Scheduled(fixedDelayString = "${likes.flush-interval:5000}")
+    public synchronized void flush() {
+        flush(postLikes, postRepository::addNumLikes);
+        flush(commentLikes, commentRepository::addNumLikes);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static Integer withPending(Long persisted, UUID id, PendingCounts pendingCounts) {
+        return Math.toIntExact((persisted == null ? 0 : persisted) + pendingCounts.get(id));
+    }
+
+    private static Map<UUID, Integer> withPending(List<LikeCount> persisted, PendingCounts pendingCounts) {
+        Map<UUID, Integer> counts = new HashMap<>();
+        for (LikeCount likeCount : persisted) {
+            long count = likeCount.getNumLikes() == null ? 0 : likeCount.getNumLikes();
+            counts.put(likeCount.getId(), Math.toIntExact(count + pendingCounts.get(likeCount.getId())));
+        }
+        return counts;
+    }
+
+    private void flush(PendingCounts pendingCounts, BiFunction<UUID, Long, Integer> update) {
+        Map<UUID, Long> deltas = pendingCounts.drain();
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                TransactionSynchronizationManager.registerSynchronization(pendingCounts.releaseOnCompletion());
+                deltas.forEach(update::apply);
+            });
+        } catch (Exception e) {
+            logger.warn("Failed to flush {} like counters, retrying on next flush", deltas.size(), e);
+            pendingCounts.restore();
+        }
+    }
+
+    /**
+     * Deltas not yet written, and the ones being written. Reads hold the read lock across the persisted count and the
+     * pending deltas, and the flush holds the write lock from just before its commit until the deltas it wrote are
+     * dropped, so no read sees a delta both in the database and in memory, or in neither.
+     */
+    private static class PendingCounts {
+        private final ConcurrentHashMap<UUID, LongAdder> counts = new ConcurrentHashMap<>();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile Map<UUID, Long> inFlight = Collections.emptyMap();
+
+        void add(UUID id, long delta) {
+            lock.readLock().lock();
+            try {
+                counts.computeIfAbsent(id, key -> new LongAdder()).add(delta);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        <T> T read(Supplier<T> reader) {
+            lock.readLock().lock();
+            try {
+                return reader.get();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        long get(UUID id) {
+            LongAdder adder = counts.get(id);
+            return (adder == null ? 0 : adder.sum()) + inFlight.getOrDefault(id, 0L);
+        }
+
+        Map<UUID, Long> drain() {
+            lock.writeLock().lock();
+            try {
+                Map<UUID, Long> drained = new HashMap<>();
+                counts.forEach((id, adder) -> {
+                    long delta = adder.sum();
+                    if (delta != 0) {
+                        drained.put(id, delta);
+                    }
+                });
+                counts.clear();
+                inFlight = drained;
+                return drained;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        TransactionSynchronization releaseOnCompletion() {
+            return new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    lock.writeLock().lock();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        inFlight = Collections.emptyMap();
+                    }
+                    if (lock.writeLock().isHeldByCurrentThread()) {
+                        lock.writeLock().unlock();
+                    }
+                }
+            };
+        }
+
+        /**
+         * Puts the deltas of a failed flush back with the pending ones. Does nothing if they were committed.
+         */
+        void restore() {
+            lock.writeLock().lock();
+            try {
+                inFlight.forEach((id, delta) -> counts.computeIfAbsent(id, key -> new LongAdder()).add(delta));
+                inFlight = Collections.emptyMap();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.kiki.blog.app.service;
+
+import com.kiki.blog.app.model.LikeKey;
+import com.kiki.blog.app.repository.LikeBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Service
+public class LikeIngestionService {
+    private static final Logger logger = LoggerFactory.getLogger(LikeIngestionService.class);
+
+    private final LikeBatchRepository likeBatchRepository;
+    private final LikeCounterService likeCounterService;
+    private final TransactionTemplate transactionTemplate;
+    private final PendingLikes postLikes = new PendingLikes();
+    private final PendingLikes commentLikes = new PendingLikes();
+
+    @Autowired
+    public LikeIngestionService(LikeBatchRepository likeBatchRepository, LikeCounterService likeCounterService, TransactionTemplate transactionTemplate) {
+        this.likeBatchRepository = likeBatchRepository;
+        this.likeCounterService = likeCounterService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public void likePost(UUID userId, UUID postId) {
+        postLikes.toggle(new LikeKey(userId, postId), true);
+    }
+
+    public void unlikePost(UUID userId, UUID postId) {
+        postLikes.toggle(new LikeKey(userId, postId), false);
+    }
+
+    public void likeComment(UUID userId, UUID commentId) {
+        commentLikes.toggle(new LikeKey(userId, commentId), true);
+    }
+
+    public void unlikeComment(UUID userId, UUID commentId) {
+        commentLikes.toggle(new LikeKey(userId, commentId), false);
+    }
+
+    public Integer getPostLikes(UUID postId) {
+        return postLikes.count(postId, likeCounterService::getPostLikes);
+    }
+
+    public Integer getCommentLikes(UUID commentId) {
+        return commentLikes.count(commentId, likeCounterService::getCommentLikes);
+    }
+
+    public Map<UUID, Integer> getPostLikes(Collection<UUID> postIds) {
+        return postLikes.count(() -> likeCounterService.getPostLikes(postIds));
+    }
+
+    public Map<UUID, Integer> getCommentLikes(Collection<UUID> commentIds) {
+        return commentLikes.count(() -> likeCounterService.getCommentLikes(commentIds));
+    }
+
+    public Map<UUID, Integer> getCommentLikesByPostId(UUID postId) {
+        return commentLikes.count(() -> likeCounterService.getCommentLikesByPostId(postId));
+    }
+
+    @Scheduled(fixedDelayString = "${likes.ingest-interval:200}")
+    public synchronized void flush() {
+        flush(postLikes, likeBatchRepository::insertPostLikes, likeBatchRepository::deletePostLikes, likeCounterService::addPostLikes);
+        flush(commentLikes, likeBatchRepository::insertCommentLikes, likeBatchRepository::deleteCommentLikes, likeCounterService::addCommentLikes);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void flush(PendingLikes pendingLikes,
+                       Function<List<LikeKey>, int[]> insert,
+                       Function<List<LikeKey>, int[]> delete,
+                       BiConsumer<UUID, Long> counter) {
+        Map<LikeKey, Toggle> toggles = pendingLikes.drain();
+        if (toggles.isEmpty()) {
+            return;
+        }
+        List<LikeKey> likes = new ArrayList<>();
+        List<LikeKey> unlikes = new ArrayList<>();
+        toggles.forEach((key, toggle) -> (toggle.liked ? likes : unlikes).add(key));
+
+        Map<UUID, Long> deltas = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                deltas.clear();
+                collect(deltas, likes, insert.apply(likes), 1);
+                collect(deltas, unlikes, delete.apply(unlikes), -1);
+            });
+        } catch (Exception e) {
+            logger.warn("Failed to apply {} like toggles, retrying on next flush", toggles.size(), e);
+            pendingLikes.restore();
+            return;
+        }
+        pendingLikes.complete(() -> deltas.forEach(counter));
+    }
+
+    private static void collect(Map<UUID, Long> deltas, List<LikeKey> keys, int[] updated, long sign) {
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] > 0) {
+                deltas.merge(keys.get(i).getTargetId(), sign * updated[i], Long::sum);
+            }
+        }
+    }
+
+    /**
+     * The state a (user, target) pair is assumed to have in the database when its first pending toggle arrived, and
+     * the state it should end up in. Only the latest toggle is kept, so a burst of like/unlike collapses to one row.
+     */
+    private static class Toggle {
+        final boolean baseline;
+        final boolean liked;
+
+        Toggle(boolean baseline, boolean liked) {
+            this.baseline = baseline;
+            this.liked = liked;
+        }
+
+        long delta() {
+            return (liked ? 1 : 0) - (baseline ? 1 : 0);
+        }
+    }
+
+    /**
+     * Pending toggles and the like counts they are optimistically expected to add. Reads include the toggles being
+     * written, and the write lock is held while the actual counts replace them so no read sees both.
+     */
+    private static class PendingLikes {
+        private final ConcurrentHashMap<LikeKey, Toggle> toggles = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<UUID, Long> expected = new ConcurrentHashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile Map<LikeKey, Toggle> inFlight = Collections.emptyMap();
+        private volatile Map<UUID, Long> inFlightExpected = Collections.emptyMap();
+
+        void toggle(LikeKey key, boolean liked) {
+            long[] delta = new long[1];
+            lock.readLock().lock();
+            try {
+                toggles.compute(key, (k, previous) -> {
+                    Toggle next;
+                    if (previous != null) {
+                        next = new Toggle(previous.baseline, liked);
+                        delta[0] = next.delta() - previous.delta();
+                    } else {
+                        Toggle flying = inFlight.get(k);
+                        next = new Toggle(flying != null ? flying.liked : !liked, liked);
+                        delta[0] = next.delta();
+                    }
+                    return next;
+                });
+                if (delta[0] != 0) {
+                    expected.merge(key.getTargetId(), delta[0], Long::sum);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        Integer count(UUID targetId, Function<UUID, Integer> persisted) {
+            lock.readLock().lock();
+            try {
+                return Math.toIntExact(Math.max(0, persisted.apply(targetId) + pending(targetId)));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        Map<UUID, Integer> count(Supplier<Map<UUID, Integer>> persisted) {
+            lock.readLock().lock();
+            try {
+                Map<UUID, Integer> counts = persisted.get();
+                counts.replaceAll((targetId, count) -> Math.toIntExact(Math.max(0, count + pending(targetId))));
+                return counts;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private long pending(UUID targetId) {
+            return expected.getOrDefault(targetId, 0L) + inFlightExpected.getOrDefault(targetId, 0L);
+        }
+
+        Map<LikeKey, Toggle> drain() {
+            lock.writeLock().lock();
+            try {
+                inFlight = new HashMap<>(toggles);
+                inFlightExpected = new HashMap<>(expected);
+                toggles.clear();
+                expected.clear();
+                return inFlight;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void complete(Runnable apply) {
+            lock.writeLock().lock();
+            try {
+                apply.run();
+                inFlight = Collections.emptyMap();
+                inFlightExpected = Collections.emptyMap();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void restore() {
+            lock.writeLock().lock();
+            try {
+                inFlight.forEach((key, flying) -> toggles.merge(key, flying, (newer, older) -> new Toggle(older.baseline, newer.liked)));
+                inFlightExpected.forEach((id, delta) -> expected.merge(id, delta, Long::sum));
+                inFlight = Collections.emptyMap();
+                inFlightExpected = Collections.emptyMap();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
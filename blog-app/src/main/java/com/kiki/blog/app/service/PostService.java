@@ -3,66 +3,101 @@ package com.kiki.blog.app.service;
 import com.kiki.blog.app.entity.PostEntity;
 import com.kiki.blog.app.entity.UserEntity;
 import com.kiki.blog.app.error.exception.EntityNotFoundException;
-import com.kiki.blog.app.repository.LikePostRepository;
+import com.kiki.blog.app.error.exception.InvalidRequestException;
+import com.kiki.blog.app.mapper.BlogMapper;
+import com.kiki.blog.app.model.IdBatch;
+import com.kiki.blog.app.model.PostCursor;
 import com.kiki.blog.app.repository.PostRepository;
 import com.kiki.blog.openapi.model.Post;
-import org.modelmapper.ModelMapper;
+import com.kiki.blog.openapi.model.PostSlice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 public class PostService {
+    private static final Logger logger = LoggerFactory.getLogger(PostService.class);
+    public static final String POSTS_CACHE = "posts";
+
     private final PostRepository postRepository;
-    private final LikePostRepository likePostRepository;
-    private final ModelMapper mapper = new ModelMapper();
+    private final LikeIngestionService likeIngestionService;
+    private final FeedService feedService;
+    private final SearchService searchService;
+    private final BlogMapper mapper;
 
     @Autowired
-    public PostService(PostRepository postRepository, LikePostRepository likePostRepository) {
+    public PostService(PostRepository postRepository, LikeIngestionService likeIngestionService, FeedService feedService, SearchService searchService, BlogMapper mapper) {
         this.postRepository = postRepository;
-        this.likePostRepository = likePostRepository;
+        this.likeIngestionService = likeIngestionService;
+        this.feedService = feedService;
+        this.searchService = searchService;
+        this.mapper = mapper;
     }
 
     public Post createPost(String userId, Post post) throws EntityNotFoundException {
         UserEntity user = new UserEntity();
         user.setId(UUID.fromString(userId));
+        PostEntity newPost = mapper.toPostEntity(post);
+        newPost.setUser(user);
+        newPost.setDatetime(OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS));
         try {
-            PostEntity newPost = mapper.map(post, PostEntity.class);
-            newPost.setUser(user);
-            newPost.setDatetime(OffsetDateTime.now());
             newPost = postRepository.save(newPost);
-            return mapper.map(newPost, Post.class);
         } catch (Exception e) {
             throw new EntityNotFoundException("User " + userId + " not found");
         }
+        try {
+            feedService.publish(newPost);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to publish post {} to the feeds of its author's followers", newPost.getId(), e);
+        }
+        searchService.indexPost(newPost);
+        return mapper.toPost(newPost);
     }
 
+    @Transactional(readOnly = true)
     public List<Post> getPosts(String userId) {
         return postRepository.findAllByUserId(UUID.fromString(userId))
                 .stream()
-                .map(postEntity -> mapper.map(postEntity, Post.class))
+                .map(postEntity -> mapper.toPost(postEntity))
                 .collect(Collectors.toList());
     }
 
+    @Cacheable(cacheNames = POSTS_CACHE, key = "#postId", sync = true)
+    @Transactional(readOnly = true)
     public Post getPost(String postId) throws EntityNotFoundException {
         Optional<PostEntity> post = postRepository.findById(UUID.fromString(postId));
         if (post.isEmpty()) {
             throw new EntityNotFoundException("Post with ID " + postId + " not found");
         } else {
-            return mapper.map(post.get(), Post.class);
+            return mapper.toPost(post.get());
         }
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = POSTS_CACHE, key = "#postId"),
+            @CacheEvict(cacheNames = CommentService.COMMENTS_CACHE, key = "#postId + ':full'"),
+            @CacheEvict(cacheNames = CommentService.COMMENTS_CACHE, key = "#postId + ':compact'")
+    })
     public Post updatePost(String userId, String postId, Post post) throws EntityNotFoundException {
         UserEntity user = new UserEntity();
         user.setId(UUID.fromString(userId));
@@ -76,24 +111,40 @@ public class PostService {
             newPost.setContent(post.getContent());
         }
         try {
-            return mapper.map(postRepository.save(newPost), Post.class);
+            newPost = postRepository.save(newPost);
         } catch (Exception e) {
             throw new EntityNotFoundException("Post with ID " + postId + " and user " + userId + " not found");
         }
+        searchService.indexPost(newPost);
+        return mapper.toPost(newPost);
     }
 
+    @Transactional(readOnly = true)
     public Integer getPostLikes(String postId) {
-        return likePostRepository.countAllByPostId(UUID.fromString(postId));
+        return likeIngestionService.getPostLikes(UUID.fromString(postId));
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Integer> getPostsLikes(List<String> postIds) throws InvalidRequestException {
+        Set<UUID> ids = IdBatch.parse(postIds);
+        return IdBatch.byId(ids, likeIngestionService.getPostLikes(ids));
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = POSTS_CACHE, key = "#postId"),
+            @CacheEvict(cacheNames = CommentService.COMMENTS_CACHE, key = "#postId + ':full'"),
+            @CacheEvict(cacheNames = CommentService.COMMENTS_CACHE, key = "#postId + ':compact'")
+    })
     public void deletePost(String userId, String postId) throws EntityNotFoundException {
         try {
             postRepository.delete(postRepository.findPostEntityByIdAndUserId(UUID.fromString(postId), UUID.fromString(userId)));
         } catch (Exception e) {
             throw new EntityNotFoundException("Post with ID " + postId + " and user " + userId + " not found");
         }
+        searchService.removePost(UUID.fromString(postId));
     }
 
+    @Transactional(readOnly = true)
     public List<Post> getLatestPosts(Integer pageNo, Integer pageSize, String sortBy) {
         Pageable paging = PageRequest.of(pageNo, pageSize, Sort.by(Sort.Direction.DESC, sortBy));
 
@@ -102,10 +153,33 @@ public class PostService {
         if(pagedResult.hasContent()) {
             return pagedResult.getContent()
                     .stream()
-                    .map(postEntity -> mapper.map(postEntity, Post.class))
+                    .map(postEntity -> mapper.toPost(postEntity))
                     .collect(Collectors.toList());
         } else {
             return new ArrayList<>();
         }
     }
+
+    @Transactional(readOnly = true)
+    public PostSlice getLatestPostsByCursor(String cursor, Integer pageSize) throws InvalidRequestException {
+        Pageable paging = PageRequest.of(0, pageSize, Sort.by(Sort.Direction.DESC, "datetime", "id"));
+
+        Slice<PostEntity> slice;
+        if (cursor == null) {
+            slice = postRepository.findLatest(paging);
+        } else {
+            PostCursor postCursor = PostCursor.decode(cursor);
+            slice = postRepository.findLatestBefore(postCursor.getDatetime(), postCursor.getId(), paging);
+        }
+
+        List<PostEntity> content = slice.getContent();
+        PostSlice result = new PostSlice().posts(content
+                .stream()
+                .map(postEntity -> mapper.toPost(postEntity))
+                .collect(Collectors.toList()));
+        if (slice.hasNext()) {
+            result.setNextCursor(PostCursor.of(content.get(content.size() - 1)).encode());
+        }
+        return result;
+    }
 }
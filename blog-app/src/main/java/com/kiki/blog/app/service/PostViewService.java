@@ -0,0 +1,121 @@
+package com.kiki.blog.app.service;
+
+import com.kiki.blog.app.error.exception.EntityNotFoundException;
+import com.kiki.blog.app.error.exception.ServiceUnavailableException;
+import com.kiki.blog.openapi.model.Comment;
+import com.kiki.blog.openapi.model.CommentView;
+import com.kiki.blog.openapi.model.PostView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.task.DelegatingSecurityContextAsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+@Service
+public class PostViewService {
+    private static final String COMPACT_VIEW = "compact";
+
+    private final PostService postService;
+    private final CommentService commentService;
+    private final ThreadPoolTaskExecutor pool;
+    private final AsyncTaskExecutor executor;
+    private final Duration timeout;
+
+    /**
+     * Every part holds a connection while it runs, so the pool threads together hold at most pool-size connections.
+     * The pool has to be smaller than the connection pool, or a burst of views could take every connection.
+     */
+    @Autowired
+    public PostViewService(
+            PostService postService,
+            CommentService commentService,
+            @Value("${post-view.pool-size:8}") int poolSize,
+            @Value("${post-view.queue-capacity:200}") int queueCapacity,
+            @Value("${post-view.timeout:5s}") Duration timeout,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        if (poolSize >= connectionPoolSize) {
+            throw new IllegalStateException("post-view.pool-size " + poolSize + " has to be smaller than the connection pool size " + connectionPoolSize);
+        }
+        this.postService = postService;
+        this.commentService = commentService;
+        this.timeout = timeout;
+        this.pool = new ThreadPoolTaskExecutor();
+        this.pool.setCorePoolSize(poolSize);
+        this.pool.setMaxPoolSize(poolSize);
+        this.pool.setQueueCapacity(queueCapacity);
+        this.pool.setThreadNamePrefix("post-view-");
+        this.pool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        this.pool.initialize();
+        this.executor = new DelegatingSecurityContextAsyncTaskExecutor(pool);
+    }
+
+    /**
+     * Loads the post, the comments and both kinds of like counts at the same time, so the view takes as long as the
+     * slowest of them. Parts run with the caller's security context, keeping their reads on the primary right after
+     * the caller's own writes. When the pool is saturated the caller runs them itself.
+     * <p>
+     * Each part is its own read-only transaction and may be served by a different replica, so the parts are not one
+     * snapshot: the like counts can be newer or older than the post and comments they come with. Each part is still
+     * no further behind than the tolerated replica lag.
+     * <p>
+     * A view not loaded within the timeout is given up with a ServiceUnavailableException, and its parts are left to
+     * finish on their own.
+     */
+    public PostView getPostView(String postId) throws EntityNotFoundException, ServiceUnavailableException {
+        CompletableFuture<PostView> post = submit(() -> postService.getPost(postId))
+                .thenCombine(submit(() -> postService.getPostLikes(postId)), (p, likes) -> new PostView().post(p).likes(likes));
+        CompletableFuture<List<CommentView>> comments = submit(() -> commentService.getComments(postId, COMPACT_VIEW))
+                .thenCombine(submit(() -> commentService.getCommentLikesByPostId(postId)), PostViewService::withLikes);
+        try {
+            return post.thenCombine(comments, PostView::comments).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("Post " + postId + " was not loaded within " + timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while loading post " + postId);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof EntityNotFoundException) {
+                throw (EntityNotFoundException) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> part) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return part.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    private static List<CommentView> withLikes(List<Comment> comments, Map<UUID, Integer> likes) {
+        return comments.stream()
+                .map(comment -> new CommentView()
+                        .comment(comment)
+                        .likes(likes.getOrDefault(UUID.fromString(comment.getId()), 0)))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,356 @@
+package com.kiki.blog.app.service;
+
+import com.kiki.blog.app.entity.CommentEntity;
+import com.kiki.blog.app.entity.PostEntity;
+import com.kiki.blog.app.error.exception.InvalidRequestException;
+import com.kiki.blog.app.error.exception.ServiceUnavailableException;
+import com.kiki.blog.app.mapper.BlogMapper;
+import com.kiki.blog.app.model.CommentSummary;
+import com.kiki.blog.app.model.IndexedText;
+import com.kiki.blog.app.model.SearchCursor;
+import com.kiki.blog.app.model.SearchStatistics;
+import com.kiki.blog.app.model.SearchType;
+import com.kiki.blog.app.repository.CommentRepository;
+import com.kiki.blog.app.repository.PostRepository;
+import com.kiki.blog.openapi.model.Comment;
+import com.kiki.blog.openapi.model.Post;
+import com.kiki.blog.openapi.model.SearchResult;
+import com.kiki.blog.openapi.model.SearchSlice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Ranks posts and comments from an index held in memory. The index only sees the writes made through this instance,
+ * so search is only correct with a single instance of the application: another instance would serve results missing
+ * this one's writes until it restarts. Searches are refused until the index has been loaded after startup.
+ */
+@Service
+public class SearchService {
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final BlogMapper mapper;
+    private final Map<SearchType, Map<UUID, Document>> documents = new EnumMap<>(SearchType.class);
+    private final Map<String, Map<Document, Integer>> postings = new HashMap<>();
+    private final Map<SearchType, Set<UUID>> touched = new EnumMap<>(SearchType.class);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalLength;
+    private volatile boolean ready;
+
+    @Autowired
+    public SearchService(PostRepository postRepository, CommentRepository commentRepository, BlogMapper mapper) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.mapper = mapper;
+        for (SearchType type : SearchType.values()) {
+            documents.put(type, new HashMap<>());
+        }
+    }
+
+    /**
+     * Loads every post and comment into the index once the application is serving. Writes made meanwhile are indexed
+     * as they happen; the rebuild skips the documents they touched, as the text it streams may predate them. Searches
+     * are refused until it has finished, as the index would be missing documents not loaded yet.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            for (SearchType type : SearchType.values()) {
+                touched.put(type, new HashSet<>());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            try (Stream<IndexedText> posts = postRepository.streamAllText()) {
+                posts.forEach(text -> index(SearchType.POST, text.getId(), text.getText(), true));
+            }
+            try (Stream<IndexedText> comments = commentRepository.streamAllText()) {
+                comments.forEach(text -> index(SearchType.COMMENT, text.getId(), text.getText(), true));
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                touched.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        logger.info("Indexed {} posts and {} comments in {} ms", size(SearchType.POST), size(SearchType.COMMENT), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Indexing runs after the write has committed, so a failure is only logged; the document is then missing from
+     * the results, or found by its old text, until the next rebuild.
+     */
+    public void indexPost(PostEntity post) {
+        safely(() -> index(SearchType.POST, post.getId(), Objects.toString(post.getTitle(), "") + " " + Objects.toString(post.getContent(), ""), false), SearchType.POST, post.getId());
+    }
+
+    public void indexComment(CommentEntity comment) {
+        safely(() -> index(SearchType.COMMENT, comment.getId(), comment.getContent(), false), SearchType.COMMENT, comment.getId());
+    }
+
+    public void removePost(UUID postId) {
+        safely(() -> remove(SearchType.POST, postId), SearchType.POST, postId);
+    }
+
+    public void removeComment(UUID commentId) {
+        safely(() -> remove(SearchType.COMMENT, commentId), SearchType.COMMENT, commentId);
+    }
+
+    public SearchSlice search(String query, Integer pageSize, String type, String cursor) throws InvalidRequestException, ServiceUnavailableException {
+        if (!ready) {
+            throw new ServiceUnavailableException("Search index is still loading");
+        }
+        if (pageSize == null || pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<SearchCursor> hits = rank(query, SearchType.fromValue(type), cursor == null ? null : SearchCursor.decode(cursor), pageSize + 1);
+        List<SearchCursor> page = hits.subList(0, Math.min(hits.size(), pageSize));
+
+        Map<UUID, Post> posts = load(page, SearchType.POST, ids -> postRepository.findAllByIdIn(ids)
+                .stream()
+                .collect(Collectors.toMap(PostEntity::getId, postEntity -> mapper.toPost(postEntity))));
+        Map<UUID, Comment> comments = load(page, SearchType.COMMENT, ids -> commentRepository.findSummariesByIdIn(ids)
+                .stream()
+                .collect(Collectors.toMap(CommentSummary::getId, commentSummary -> mapper.toComment(commentSummary))));
+
+        SearchSlice result = new SearchSlice().results(new ArrayList<>());
+        for (SearchCursor hit : page) {
+            SearchResult searchResult = new SearchResult().type(hit.getType().getValue()).score(hit.getScore());
+            if (hit.getType() == SearchType.POST && posts.containsKey(hit.getId())) {
+                result.addResultsItem(searchResult.post(posts.get(hit.getId())));
+            } else if (hit.getType() == SearchType.COMMENT && comments.containsKey(hit.getId())) {
+                result.addResultsItem(searchResult.comment(comments.get(hit.getId())));
+            }
+        }
+        if (hits.size() > pageSize) {
+            result.setNextCursor(page.get(pageSize - 1).encode());
+        }
+        return result;
+    }
+
+    /**
+     * Returns up to limit documents containing every word of the query and ranked after the cursor, best BM25 score
+     * first. Only the rarest word's postings are walked, the others are probed per candidate. Pages after the first
+     * are scored with the collection statistics the cursor carries from the first, so writes in between do not move
+     * documents across the cursor; only a document whose own text changed can be seen twice or not at all.
+     */
+    public List<SearchCursor> rank(String query, SearchType type, SearchCursor after, int limit) throws InvalidRequestException {
+        List<String> terms = new ArrayList<>(tokenize(query).keySet());
+        if (terms.isEmpty()) {
+            throw new InvalidRequestException("Query " + query + " has no searchable words");
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Map<Document, Integer>> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<Document, Integer> list = postings.get(term);
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+                lists.add(list);
+            }
+
+            SearchStatistics statistics;
+            if (after != null) {
+                statistics = after.getStatistics();
+                if (statistics.getFrequencies().length != terms.size()) {
+                    throw new InvalidRequestException("Cursor does not belong to query " + query);
+                }
+            } else {
+                statistics = new SearchStatistics(
+                        size(SearchType.POST) + size(SearchType.COMMENT),
+                        totalLength,
+                        lists.stream().mapToInt(Map::size).toArray());
+            }
+            double averageLength = (double) statistics.getTotalLength() / Math.max(1, statistics.getDocumentCount());
+            Integer[] order = new Integer[terms.size()];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, Comparator.comparingInt(i -> lists.get(i).size()));
+            double[] idf = new double[order.length];
+            for (int i = 0; i < order.length; i++) {
+                int frequency = statistics.getFrequencies()[order[i]];
+                idf[i] = Math.log(1 + (statistics.getDocumentCount() - frequency + 0.5) / (frequency + 0.5));
+            }
+            lists.sort(Comparator.comparingInt(Map::size));
+
+            PriorityQueue<SearchCursor> top = new PriorityQueue<>(limit + 1, SearchCursor.BEST_FIRST.reversed());
+            for (Map.Entry<Document, Integer> entry : lists.get(0).entrySet()) {
+                Document document = entry.getKey();
+                if (type != null && document.type != type) {
+                    continue;
+                }
+                double lengthNorm = K1 * (1 - B + B * document.length / averageLength);
+                double score = idf[0] * bm25(entry.getValue(), lengthNorm);
+                for (int i = 1; i < lists.size() && score >= 0; i++) {
+                    Integer frequency = lists.get(i).get(document);
+                    score = frequency == null ? -1 : score + idf[i] * bm25(frequency, lengthNorm);
+                }
+                if (score < 0) {
+                    continue;
+                }
+                SearchCursor hit = new SearchCursor(score, document.type, document.id, statistics);
+                if (after != null && SearchCursor.BEST_FIRST.compare(hit, after) <= 0) {
+                    continue;
+                }
+                top.add(hit);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<SearchCursor> hits = new ArrayList<>(top);
+            hits.sort(SearchCursor.BEST_FIRST);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(SearchType type, UUID id, String text, boolean rebuilding) {
+        Map<String, Integer> frequencies = tokenize(text);
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+        Document document = new Document(type, id, length, frequencies.keySet().toArray(new String[0]));
+
+        lock.writeLock().lock();
+        try {
+            if (!touch(type, id, rebuilding)) {
+                return;
+            }
+            unindex(type, id);
+            frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, key -> new HashMap<>()).put(document, frequency));
+            documents.get(type).put(id, document);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void safely(Runnable write, SearchType type, UUID id) {
+        try {
+            write.run();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to update {} {} in the search index", type.getValue(), id, e);
+        }
+    }
+
+    private void remove(SearchType type, UUID id) {
+        lock.writeLock().lock();
+        try {
+            touch(type, id, false);
+            unindex(type, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records a write while a rebuild runs, and tells whether the rebuild may still index the document.
+     */
+    private boolean touch(SearchType type, UUID id, boolean rebuilding) {
+        Set<UUID> written = touched.get(type);
+        if (written == null) {
+            return true;
+        }
+        if (rebuilding) {
+            return !written.contains(id);
+        }
+        written.add(id);
+        return true;
+    }
+
+    private void unindex(SearchType type, UUID id) {
+        Document previous = documents.get(type).remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms) {
+            Map<Document, Integer> list = postings.get(term);
+            list.remove(previous);
+            if (list.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= previous.length;
+    }
+
+    private int size(SearchType type) {
+        return documents.get(type).size();
+    }
+
+    private static <T> Map<UUID, T> load(List<SearchCursor> hits, SearchType type, Function<List<UUID>, Map<UUID, T>> loader) {
+        List<UUID> ids = hits.stream()
+                .filter(hit -> hit.getType() == type)
+                .map(SearchCursor::getId)
+                .collect(Collectors.toList());
+        return ids.isEmpty() ? Collections.emptyMap() : loader.apply(ids);
+    }
+
+    private static double bm25(int frequency, double lengthNorm) {
+        return frequency * (K1 + 1) / (frequency + lengthNorm);
+    }
+
+    private static Map<String, Integer> tokenize(String text) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        if (text != null) {
+            for (String term : SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+                if (!term.isEmpty()) {
+                    frequencies.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+        return frequencies;
+    }
+
+    private static class Document {
+        final SearchType type;
+        final UUID id;
+        final int length;
+        final String[] terms;
+
+        Document(SearchType type, UUID id, int length, String[] terms) {
+            this.type = type;
+            this.id = id;
+            this.length = length;
+            this.terms = terms;
+        }
+    }
+}
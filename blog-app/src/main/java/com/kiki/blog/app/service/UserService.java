@@ -3,24 +3,29 @@ package com.kiki.blog.app.service;
 import com.kiki.blog.app.entity.*;
 import com.kiki.blog.app.error.exception.UnauthorizedAccessException;
 import com.kiki.blog.app.error.exception.EntityNotFoundException;
+import com.kiki.blog.app.error.exception.InvalidRequestException;
 import com.kiki.blog.app.error.exception.UsernameConflictExceptions;
+import com.kiki.blog.app.mapper.BlogMapper;
+import com.kiki.blog.app.model.IdBatch;
+import com.kiki.blog.app.repository.CommentRepository;
 import com.kiki.blog.app.repository.FollowRepository;
-import com.kiki.blog.app.repository.LikeCommentRepository;
-import com.kiki.blog.app.repository.LikePostRepository;
+import com.kiki.blog.app.repository.PostRepository;
 import com.kiki.blog.app.repository.UserRepository;
+import com.kiki.blog.app.security.model.BlogUserDetail;
+import com.kiki.blog.app.security.service.PrincipalCache;
 import com.kiki.blog.openapi.model.CreateUser;
 import com.kiki.blog.openapi.model.User;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -29,30 +34,36 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final FollowRepository followRepository;
-    private final LikePostRepository likePostRepository;
-    private final LikeCommentRepository likeCommentRepository;
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
     private final PasswordEncoder encoder;
-    private final ModelMapper mapper = new ModelMapper();
+    private final PrincipalCache principalCache;
+    private final LikeIngestionService likeIngestionService;
+    private final FeedService feedService;
+    private final BlogMapper mapper;
 
     @Autowired
-    public UserService(UserRepository userRepository, FollowRepository followRepository, LikePostRepository likePostRepository, LikeCommentRepository likeCommentRepository, PasswordEncoder encoder) {
+    public UserService(UserRepository userRepository, FollowRepository followRepository, PostRepository postRepository, CommentRepository commentRepository, PasswordEncoder encoder, PrincipalCache principalCache, LikeIngestionService likeIngestionService, FeedService feedService, BlogMapper mapper) {
         this.userRepository = userRepository;
         this.followRepository = followRepository;
-        this.likePostRepository = likePostRepository;
-        this.likeCommentRepository = likeCommentRepository;
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
         this.encoder = encoder;
+        this.principalCache = principalCache;
+        this.likeIngestionService = likeIngestionService;
+        this.feedService = feedService;
+        this.mapper = mapper;
     }
 
     public void validateUserContext(String userId) throws UnauthorizedAccessException {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (!authentication.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_ADMIN"))
-                && !userRepository.findByUsername(authentication.getName()).getId().toString().equals(userId)) {
+        BlogUserDetail principal = (BlogUserDetail) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (!principal.canAccess(userId)) {
             throw new UnauthorizedAccessException("You do not have access to this resource");
         }
     }
 
     public User createUser(CreateUser user) throws UsernameConflictExceptions {
-        UserEntity newUser = mapper.map(user.getUser(), UserEntity.class);
+        UserEntity newUser = mapper.toUserEntity(user.getUser());
         newUser.setPassword(encoder.encode(user.getPassword()));
         newUser.setRoles("ROLE_USER");
         try {
@@ -60,26 +71,38 @@ public class UserService {
         } catch (Exception e) {
             throw new UsernameConflictExceptions(e.getCause().getCause().getMessage());
         }
-        return mapper.map(newUser, User.class);
+        return mapper.toUser(newUser);
     }
 
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         List<User> result = new ArrayList<>();
-        userRepository.findAll().forEach(userEntity -> result.add(mapper.map(userEntity, User.class)));
+        userRepository.findAll().forEach(userEntity -> result.add(mapper.toUser(userEntity)));
         return result;
     }
 
+    @Transactional(readOnly = true)
     public User getUser(String userId) throws EntityNotFoundException {
         Optional<UserEntity> user = userRepository.findById(UUID.fromString(userId));
         if (user.isPresent()) {
-            return mapper.map(user.get(), User.class);
+            return mapper.toUser(user.get());
         } else {
             throw new EntityNotFoundException("User " + userId + " not found");
         }
     }
 
+    @Transactional(readOnly = true)
+    public List<User> getUsers(List<String> userIds) throws InvalidRequestException {
+        Set<UUID> ids = IdBatch.parse(userIds);
+        Map<UUID, User> users = userRepository.findAllByIdIn(ids)
+                .stream()
+                .collect(Collectors.toMap(UserEntity::getId, userEntity -> mapper.toUser(userEntity)));
+        return new ArrayList<>(IdBatch.byId(ids, users).values());
+    }
+
     public void deleteUser(String userId) {
         userRepository.deleteById(UUID.fromString(userId));
+        principalCache.invalidateUser(userId);
     }
 
     public User updateUser(String userId, CreateUser user) throws EntityNotFoundException {
@@ -99,88 +122,87 @@ public class UserService {
                 userEntity.setPassword(encoder.encode(user.getPassword()));
             }
             userRepository.save(userEntity);
-            return mapper.map(userEntity, User.class);
+            principalCache.invalidateUser(userId);
+            return mapper.toUser(userEntity);
         } else {
             throw new EntityNotFoundException("User " + userId + " not found");
         }
     }
 
     public void followUser(String from, String to) throws EntityNotFoundException {
+        UUID fromId = UUID.fromString(from);
+        UUID toId = UUID.fromString(to);
+        if (followRepository.existsByFromIdAndToId(fromId, toId)) {
+            return;
+        }
         UserEntity fromUser = new UserEntity();
-        fromUser.setId(UUID.fromString(from));
+        fromUser.setId(fromId);
         UserEntity toUser = new UserEntity();
-        toUser.setId(UUID.fromString(to));
+        toUser.setId(toId);
         try {
             followRepository.save(new FollowEntity(fromUser, toUser));
         } catch (Exception e) {
-            throw new EntityNotFoundException("User " + to + " not found");
+            if (!followRepository.existsByFromIdAndToId(fromId, toId)) {
+                throw new EntityNotFoundException("User " + to + " not found");
+            }
         }
+        feedService.invalidate(from);
     }
 
     public void unfollowUser(String from, String to) throws EntityNotFoundException {
-        FollowEntity follow = followRepository.findFollowEntityByFromIdAndToId(UUID.fromString(from), UUID.fromString(to));
-        try {
-            followRepository.delete(follow);
-        } catch (Exception e) {
+        if (followRepository.deleteByFromIdAndToId(UUID.fromString(from), UUID.fromString(to)) == 0) {
             throw new EntityNotFoundException("User " + to + " not found");
         }
+        feedService.invalidate(from);
     }
 
+    @Transactional(readOnly = true)
     public List<User> getFollowers(String userId) {
         return followRepository.findAllByToId(UUID.fromString(userId))
                 .stream()
                 .map(FollowEntity::getFrom)
-                .map(userEntity -> mapper.map(userEntity, User.class))
+                .map(userEntity -> mapper.toUser(userEntity))
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<User> getFollowings(String userId) {
         return followRepository.findAllByFromId(UUID.fromString(userId))
                 .stream()
                 .map(FollowEntity::getTo)
-                .map(userEntity -> mapper.map(userEntity, User.class))
+                .map(userEntity -> mapper.toUser(userEntity))
                 .collect(Collectors.toList());
     }
 
     public void likeComment(String userId, String commentId) throws EntityNotFoundException {
-        UserEntity user = new UserEntity();
-        user.setId(UUID.fromString(userId));
-        CommentEntity comment = new CommentEntity();
-        comment.setId(UUID.fromString(commentId));
-        try {
-            likeCommentRepository.save(new LikeCommentEntity(user, comment));
-        } catch (Exception e) {
-            throw new EntityNotFoundException("Comment " + commentId + " not found");
-        }
+        likeIngestionService.likeComment(UUID.fromString(userId), existingComment(commentId));
     }
 
     public void likePost(String userId, String postId) throws EntityNotFoundException {
-        UserEntity user = new UserEntity();
-        user.setId(UUID.fromString(userId));
-        PostEntity post = new PostEntity();
-        post.setId(UUID.fromString(postId));
-        try {
-            likePostRepository.save(new LikePostEntity(user, post));
-        } catch (Exception e) {
-            throw new EntityNotFoundException("Post " + postId + " not found");
-        }
+        likeIngestionService.likePost(UUID.fromString(userId), existingPost(postId));
     }
 
     public void unlikeComment(String userId, String commentId) throws EntityNotFoundException {
-        LikeCommentEntity like = likeCommentRepository.findLikeCommentEntityByUserIdAndCommentId(UUID.fromString(userId), UUID.fromString(commentId));
-        try {
-            likeCommentRepository.delete(like);
-        } catch (Exception e) {
-            throw new EntityNotFoundException("Comment " + commentId + " not found");
-        }
+        likeIngestionService.unlikeComment(UUID.fromString(userId), existingComment(commentId));
     }
 
     public void unlikePost(String userId, String postId) throws EntityNotFoundException {
-        LikePostEntity like = likePostRepository.findLikePostEntityByUserIdAndPostId(UUID.fromString(userId), UUID.fromString(postId));
-        try {
-            likePostRepository.delete(like);
-        } catch (Exception e) {
-            throw new EntityNotFoundException("Comment " + postId + " not found");
+        likeIngestionService.unlikePost(UUID.fromString(userId), existingPost(postId));
+    }
+
+    private UUID existingPost(String postId) throws EntityNotFoundException {
+        UUID id = UUID.fromString(postId);
+        if (!postRepository.existsById(id)) {
+            throw new EntityNotFoundException("Post " + postId + " not found");
+        }
+        return id;
+    }
+
+    private UUID existingComment(String commentId) throws EntityNotFoundException {
+        UUID id = UUID.fromString(commentId);
+        if (!commentRepository.existsById(id)) {
+            throw new EntityNotFoundException("Comment " + commentId + " not found");
         }
+        return id;
     }
 }
@@ -0,0 +1,74 @@
+create table if not exists user_entity (
+    id binary(255) not null,
+    avatar varchar(255),
+    email varchar(255),
+    password varchar(255),
+    roles varchar(255),
+    username varchar(255),
+    constraint user_entity_pkey primary key (id),
+    constraint user_entity_username_key unique (username)
+);
+
+create table if not exists post_entity (
+    id binary(255) not null,
+    content varchar(255),
+    datetime timestamp,
+    num_likes bigint not null,
+    title varchar(255),
+    post_id binary(255),
+    user_id binary(255),
+    constraint post_entity_pkey primary key (id),
+    constraint post_entity_post_id_fkey foreign key (post_id) references post_entity (id),
+    constraint post_entity_user_id_fkey foreign key (user_id) references user_entity (id)
+);
+
+create table if not exists comment_entity (
+    id binary(255) not null,
+    content varchar(255),
+    datetime timestamp,
+    num_likes bigint not null,
+    post_id binary(255),
+    user_id binary(255),
+    constraint comment_entity_pkey primary key (id),
+    constraint comment_entity_post_id_fkey foreign key (post_id) references post_entity (id),
+    constraint comment_entity_user_id_fkey foreign key (user_id) references user_entity (id)
+);
+
+create table if not exists follow_entity (
+    id binary(255) not null,
+    from_id binary(255),
+    to_id binary(255),
+    constraint follow_entity_pkey primary key (id),
+    constraint follow_from_id_to_id_key unique (from_id, to_id),
+    constraint follow_entity_from_id_fkey foreign key (from_id) references user_entity (id),
+    constraint follow_entity_to_id_fkey foreign key (to_id) references user_entity (id)
+);
+
+create table if not exists like_post_entity (
+    id binary(255) not null,
+    post_id binary(255),
+    user_id binary(255),
+    constraint like_post_entity_pkey primary key (id),
+    constraint like_post_user_id_post_id_key unique (user_id, post_id),
+    constraint like_post_entity_post_id_fkey foreign key (post_id) references post_entity (id),
+    constraint like_post_entity_user_id_fkey foreign key (user_id) references user_entity (id)
+);
+
+create table if not exists like_comment_entity (
+    id binary(255) not null,
+    comment_id binary(255),
+    user_id binary(255),
+    constraint like_comment_entity_pkey primary key (id),
+    constraint like_comment_user_id_comment_id_key unique (user_id, comment_id),
+    constraint like_comment_entity_comment_id_fkey foreign key (comment_id) references comment_entity (id),
+    constraint like_comment_entity_user_id_fkey foreign key (user_id) references user_entity (id)
+);
+
+create index if not exists post_datetime_id_idx on post_entity (datetime, id);
+create index if not exists post_user_id_datetime_id_idx on post_entity (user_id, datetime, id);
+create index if not exists post_post_id_idx on post_entity (post_id);
+create index if not exists comment_post_id_idx on comment_entity (post_id);
+create index if not exists comment_user_id_datetime_id_idx on comment_entity (user_id, datetime, id);
+create index if not exists follow_to_id_from_id_idx on follow_entity (to_id, from_id);
+create index if not exists like_post_post_id_user_id_idx on like_post_entity (post_id, user_id);
+create index if not exists like_comment_comment_id_user_id_idx on like_comment_entity (comment_id, user_id);
@@ -0,0 +1,28 @@
+-- Databases created by ddl-auto before V1 kept their tables, which V1 then skipped. Bring them up to date; on a
+-- schema created by V1 every statement below is a no-op.
+
+alter table post_entity add column if not exists num_likes int8 default 0 not null;
+alter table comment_entity add column if not exists num_likes int8 default 0 not null;
+
+delete from like_post_entity a
+where exists (select 1 from like_post_entity b where b.user_id = a.user_id and b.post_id = a.post_id and b.id < a.id);
+delete from like_comment_entity a
+where exists (select 1 from like_comment_entity b where b.user_id = a.user_id and b.comment_id = a.comment_id and b.id < a.id);
+delete from follow_entity a
+where exists (select 1 from follow_entity b where b.from_id = a.from_id and b.to_id = a.to_id and b.id < a.id);
+
+update post_entity p set num_likes = (select count(*) from like_post_entity l where l.post_id = p.id);
+update comment_entity c set num_likes = (select count(*) from like_comment_entity l where l.comment_id = c.id);
+
+do $$
+begin
+    if not exists (select 1 from pg_constraint where conname = 'like_post_user_id_post_id_key') then
+        alter table like_post_entity add constraint like_post_user_id_post_id_key unique (user_id, post_id);
+    end if;
+    if not exists (select 1 from pg_constraint where conname = 'like_comment_user_id_comment_id_key') then
+        alter table like_comment_entity add constraint like_comment_user_id_comment_id_key unique (user_id, comment_id);
+    end if;
+    if not exists (select 1 from pg_constraint where conname = 'follow_from_id_to_id_key') then
+        alter table follow_entity add constraint follow_from_id_to_id_key unique (from_id, to_id);
+    end if;
+end $$;
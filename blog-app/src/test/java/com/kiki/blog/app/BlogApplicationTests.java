@@ -4,28 +4,52 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.kiki.blog.app.entity.PostEntity;
+import com.kiki.blog.app.entity.UserEntity;
+import com.kiki.blog.app.service.LikeIngestionService;
+import com.kiki.blog.app.service.PostService;
 import com.kiki.blog.openapi.model.*;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfoService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import javax.imageio.ImageIO;
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.UUID;
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@AutoConfigureMetrics
 @TestPropertySource(locations = "classpath:application-test.properties")
 class BlogApplicationTests {
 
     private final MockMvc mockMvc;
     private final ObjectMapper objectMapper;
+    private final Statistics statistics;
+    private final Cache cache;
+    private final LikeIngestionService likeIngestionService;
+    private final PostService postService;
+    private final Flyway flyway;
 
     private class TestUserUtil {
         private String id;
@@ -95,9 +119,45 @@ class BlogApplicationTests {
     }
 
     @Autowired
-    public BlogApplicationTests(MockMvc mockMvc) {
+    public BlogApplicationTests(MockMvc mockMvc, EntityManagerFactory entityManagerFactory, LikeIngestionService likeIngestionService, PostService postService, Flyway flyway) {
         this.mockMvc = mockMvc;
+        this.likeIngestionService = likeIngestionService;
+        this.postService = postService;
+        this.flyway = flyway;
         this.objectMapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.cache = entityManagerFactory.getCache();
+    }
+
+    @Test
+    public void testMigrations() {
+        MigrationInfoService info = flyway.info();
+        assert info.pending().length == 0;
+        assert info.current() != null && info.current().getVersion().getVersion().equals("2");
+    }
+
+    @Test
+    public void testPrometheusMetrics() throws Exception {
+        TestPostUtil postUtil = new TestPostUtil();
+        postUtil.createPost(mockMvc);
+
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/actuator/prometheus")
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        String metrics = result.getResponse().getContentAsString();
+
+        assert metrics.contains("http_server_requests_seconds_bucket{");
+        assert metrics.contains("operation=\"createPost\"");
+        assert metrics.contains("spring_data_repository_invocations_seconds_count{");
+        assert metrics.contains("hikaricp_connections_active");
+        assert metrics.contains("hikaricp_connections_pending");
+        assert metrics.contains("cache_gets_total{");
+
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/actuator/caches")
+        ).andExpect(MockMvcResultMatchers.status().isForbidden());
     }
 
     @Test
@@ -139,6 +199,25 @@ class BlogApplicationTests {
         assert newUser.getEmail().equals(userUtil.email);
     }
 
+    @Test
+    public void testGetUserSecondLevelCache() throws Exception {
+        TestUserUtil userUtil = new TestUserUtil();
+        User newUser = userUtil.createUser(mockMvc);
+        authenticate(userUtil.username, userUtil.password);
+
+        statistics.clear();
+        String token = authenticate(userUtil.username, userUtil.password);
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/user/" + newUser.getId())
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk());
+
+        assert statistics.getPrepareStatementCount() == 0;
+        assert statistics.getNaturalIdCacheHitCount() > 0;
+        assert statistics.getSecondLevelCacheHitCount() > 0;
+    }
+
     @Test
     public void testGetGhostUser() throws Exception {
         TestUserUtil userUtil = new TestUserUtil();
@@ -245,6 +324,42 @@ class BlogApplicationTests {
         ).andExpect(MockMvcResultMatchers.status().isNotFound());
     }
 
+    @Test
+    public void testFollowUserTwice() throws Exception {
+        TestUserUtil userUtil1 = new TestUserUtil();
+        User user1 = userUtil1.createUser(mockMvc);
+        TestUserUtil userUtil2 = new TestUserUtil();
+        User user2 = userUtil2.createUser(mockMvc);
+
+        String token = authenticate(userUtil1.username, userUtil1.password);
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(
+                    MockMvcRequestBuilders
+                            .get("/user/" + user1.getId() + "/follow/" + user2.getId())
+                            .header("Authorization", token)
+            ).andExpect(MockMvcResultMatchers.status().isOk());
+        }
+
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/user/" + user2.getId() + "/follower")
+                        .header("Authorization", authenticate(userUtil2.username, userUtil2.password))
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        User[] followers = getObject(result.getResponse().getContentAsString(), User[].class);
+        assert followers.length == 1;
+
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .delete("/user/" + user1.getId() + "/follow/" + user2.getId())
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .delete("/user/" + user1.getId() + "/follow/" + user2.getId())
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
     @Test
     public void testUnfollowUser() throws Exception {
         TestUserUtil userUtil1 = new TestUserUtil();
@@ -470,6 +585,81 @@ class BlogApplicationTests {
         assert newPost.getContent().equals(post.getContent());
     }
 
+    @Test
+    public void testGetPostCached() throws Exception {
+        TestPostUtil postUtil = new TestPostUtil();
+        Post post = postUtil.createPost(mockMvc);
+
+        String token = authenticate(postUtil.userUtil.username, postUtil.userUtil.password);
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/post/%s", post.getId()))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk());
+
+        statistics.clear();
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/post/%s", post.getId()))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk());
+        assert statistics.getPrepareStatementCount() == 0;
+
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .post(String.format("/user/%s/post/%s/comment", postUtil.userUtil.id, postUtil.id))
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getJson(new Comment().post(post).content(UUID.randomUUID().toString())))
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(MockMvcResultMatchers.status().isCreated());
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/post/%s/comment", post.getId()))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk());
+
+        post.setContent(UUID.randomUUID().toString());
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .put(String.format("/user/%s/post/%s", postUtil.userUtil.id, postUtil.id))
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getJson(post))
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(MockMvcResultMatchers.status().isOk());
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/post/%s", post.getId()))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+
+        assert getObject(result.getResponse().getContentAsString(), Post.class).getContent().equals(post.getContent());
+
+        result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/post/%s/comment", post.getId()))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        assert getObject(result.getResponse().getContentAsString(), Comment[].class)[0].getPost().getContent().equals(post.getContent());
+
+        assert postService.getPost(post.getId()) != postService.getPost(post.getId());
+    }
+
+    @Test
+    public void testReplicaReadsDoNotFillSecondLevelCache() throws Exception {
+        TestPostUtil postUtil = new TestPostUtil();
+        Post post = postUtil.createPost(mockMvc);
+        UUID id = UUID.fromString(post.getId());
+
+        cache.evict(PostEntity.class, id);
+        postService.getPosts(postUtil.userUtil.id);
+        assert !cache.contains(PostEntity.class, id);
+
+        postService.getPost(post.getId());
+        assert cache.contains(PostEntity.class, id);
+    }
+
     @Test
     public void testDeletePost() throws Exception {
         TestPostUtil postUtil = new TestPostUtil();
@@ -579,6 +769,189 @@ class BlogApplicationTests {
         assert comments.length == 2;
     }
 
+    @Test
+    public void testGetCommentsCompact() throws Exception {
+        TestUserUtil userUtil = new TestUserUtil();
+        User user = userUtil.createUser(mockMvc);
+        TestPostUtil postUtil = new TestPostUtil();
+        Post post = postUtil.createPost(mockMvc);
+        Comment comment = new Comment().user(user).post(post).content(UUID.randomUUID().toString());
+
+        String token = authenticate(userUtil.username, userUtil.password);
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .post(String.format("/user/%s/post/%s/comment", userUtil.id, postUtil.id))
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getJson(comment))
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(MockMvcResultMatchers.status().isCreated());
+
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/post/%s/comment", postUtil.id))
+                        .param("view", "compact")
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        Comment[] comments = getObject(result.getResponse().getContentAsString(), Comment[].class);
+
+        assert comments.length == 1;
+        assert comments[0].getContent().equals(comment.getContent());
+        assert comments[0].getUser().getId().equals(user.getId());
+        assert comments[0].getUser().getUsername().equals(user.getUsername());
+        assert comments[0].getUser().getEmail() == null;
+        assert comments[0].getPost().getId().equals(post.getId());
+        assert comments[0].getPost().getContent() == null;
+        assert !result.getResponse().getContentAsString().contains(post.getContent());
+        assert !result.getResponse().getContentAsString().contains("\"email\"");
+
+        result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/post/%s/comment", postUtil.id))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        assert result.getResponse().getContentAsString().contains("\"post\":null");
+    }
+
+    @Test
+    public void testSearch() throws Exception {
+        TestUserUtil userUtil = new TestUserUtil();
+        User user = userUtil.createUser(mockMvc);
+        TestPostUtil postUtil = new TestPostUtil();
+        Post post = postUtil.createPost(mockMvc);
+        String word = UUID.randomUUID().toString().replace("-", "");
+
+        String token = authenticate(userUtil.username, userUtil.password);
+        for (int i = 0; i < 3; i++) {
+            Comment comment = new Comment().user(user).post(post).content(word + " comment " + i);
+            mockMvc.perform(
+                    MockMvcRequestBuilders
+                            .post(String.format("/user/%s/post/%s/comment", userUtil.id, postUtil.id))
+                            .header("Authorization", token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(getJson(comment))
+                            .accept(MediaType.APPLICATION_JSON)
+            ).andExpect(MockMvcResultMatchers.status().isCreated());
+        }
+
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/search")
+                        .param("q", post.getTitle())
+                        .param("pageSize", "10")
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        SearchSlice slice = getObject(result.getResponse().getContentAsString(), SearchSlice.class);
+        assert slice.getResults().size() == 1;
+        assert slice.getResults().get(0).getType().equals("post");
+        assert slice.getResults().get(0).getPost().getId().equals(post.getId());
+
+        result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/search")
+                        .param("q", word.toUpperCase() + " comment")
+                        .param("type", "comment")
+                        .param("pageSize", "2")
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        slice = getObject(result.getResponse().getContentAsString(), SearchSlice.class);
+        assert slice.getResults().size() == 2;
+        assert slice.getNextCursor() != null;
+        assert slice.getResults().get(0).getComment().getContent().startsWith(word);
+
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .post(String.format("/user/%s/post/%s/comment", userUtil.id, postUtil.id))
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getJson(new Comment().user(user).post(post).content("another comment")))
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(MockMvcResultMatchers.status().isCreated());
+
+        result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/search")
+                        .param("q", word + " comment")
+                        .param("type", "comment")
+                        .param("pageSize", "2")
+                        .param("cursor", slice.getNextCursor())
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        SearchSlice next = getObject(result.getResponse().getContentAsString(), SearchSlice.class);
+        assert next.getResults().size() == 1;
+        assert next.getNextCursor() == null;
+        assert slice.getResults().stream().noneMatch(searchResult -> searchResult.getComment().getId().equals(next.getResults().get(0).getComment().getId()));
+
+        result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/search")
+                        .param("q", word + " " + UUID.randomUUID())
+                        .param("pageSize", "10")
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        assert getObject(result.getResponse().getContentAsString(), SearchSlice.class).getResults().isEmpty();
+
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/search")
+                        .param("q", word)
+                        .param("type", "user")
+                        .param("pageSize", "10")
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void testGetCommentsStatementCount() throws Exception {
+        TestUserUtil readerUtil = new TestUserUtil();
+        readerUtil.createUser(mockMvc);
+        String token = authenticate(readerUtil.username, readerUtil.password);
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/user/%s", readerUtil.id))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk());
+
+        long singleComment = getCommentsStatementCount(1, token);
+        long manyComments = getCommentsStatementCount(5, token);
+        assert manyComments == singleComment;
+        assert manyComments <= 1;
+    }
+
+    private long getCommentsStatementCount(int count, String token) throws Exception {
+        TestPostUtil postUtil = new TestPostUtil();
+        Post post = postUtil.createPost(mockMvc);
+        for (int i = 0; i < count; i++) {
+            TestUserUtil userUtil = new TestUserUtil();
+            User user = userUtil.createUser(mockMvc);
+            Comment comment = new Comment().user(user).post(post).content(UUID.randomUUID().toString());
+            mockMvc.perform(
+                    MockMvcRequestBuilders
+                            .post(String.format("/user/%s/post/%s/comment", userUtil.id, post.getId()))
+                            .header("Authorization", authenticate(userUtil.username, userUtil.password))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(getJson(comment))
+                            .accept(MediaType.APPLICATION_JSON)
+            ).andExpect(MockMvcResultMatchers.status().isCreated());
+            cache.evict(UserEntity.class, UUID.fromString(userUtil.id));
+        }
+        cache.evict(UserEntity.class, UUID.fromString(postUtil.userUtil.id));
+        cache.evict(PostEntity.class, UUID.fromString(post.getId()));
+
+        statistics.clear();
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/post/%s/comment", post.getId()))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        long statements = statistics.getPrepareStatementCount();
+
+        Comment[] comments = getObject(result.getResponse().getContentAsString(), Comment[].class);
+        assert comments.length == count;
+        assert Arrays.stream(comments).map(comment -> comment.getUser().getId()).distinct().count() == count;
+        return statements;
+    }
+
     @Test
     public void testUpdateComment() throws Exception {
         TestUserUtil userUtil = new TestUserUtil();
@@ -667,6 +1040,44 @@ class BlogApplicationTests {
         assert  likeUser.equals("1");
     }
 
+    @Test
+    public void testLikePostCoalesced() throws Exception {
+        TestUserUtil userUtil = new TestUserUtil();
+        User user = userUtil.createUser(mockMvc);
+        TestPostUtil postUtil = new TestPostUtil();
+        Post post = postUtil.createPost(mockMvc);
+
+        String token = authenticate(userUtil.username, userUtil.password);
+        for (boolean like : new boolean[]{true, true, false, true}) {
+            String path = String.format("/user/%s/like/post/%s", user.getId(), post.getId());
+            mockMvc.perform(
+                    (like ? MockMvcRequestBuilders.get(path) : MockMvcRequestBuilders.delete(path))
+                            .header("Authorization", token)
+            ).andExpect(MockMvcResultMatchers.status().isOk());
+        }
+        likeIngestionService.flush();
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/user/%s/like/post/%s", user.getId(), post.getId()))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk());
+        likeIngestionService.flush();
+
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/post/%s/likes", post.getId()))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+
+        assert result.getResponse().getContentAsString().equals("1");
+
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/user/%s/like/post/%s", user.getId(), UUID.randomUUID()))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
     @Test
     public void testUnlikePost() throws Exception {
         TestUserUtil userUtil = new TestUserUtil();
@@ -833,6 +1244,18 @@ class BlogApplicationTests {
         assert  likeUser.equals("2");
     }
 
+    @Test
+    public void testRecountLikesRequiresAdmin() throws Exception {
+        TestUserUtil userUtil = new TestUserUtil();
+        userUtil.createUser(mockMvc);
+
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .post("/admin/likes/recount")
+                        .header("Authorization", authenticate(userUtil.username, userUtil.password))
+        ).andExpect(MockMvcResultMatchers.status().isForbidden());
+    }
+
     @Test
     public void testGetCommentNumLikes() throws Exception {
         TestUserUtil userUtil = new TestUserUtil();
@@ -881,6 +1304,143 @@ class BlogApplicationTests {
         assert  commentLike.equals("2");
     }
 
+    @Test
+    public void testGetPostView() throws Exception {
+        TestUserUtil userUtil = new TestUserUtil();
+        User user = userUtil.createUser(mockMvc);
+        TestPostUtil postUtil = new TestPostUtil();
+        Post post = postUtil.createPost(mockMvc);
+        Comment comment = new Comment().user(user).post(post).content(UUID.randomUUID().toString());
+
+        String token = authenticate(userUtil.username, userUtil.password);
+        MvcResult result1 = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .post(String.format("/user/%s/post/%s/comment", userUtil.id, postUtil.id))
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getJson(comment))
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(MockMvcResultMatchers.status().isCreated()).andReturn();
+        Comment comment1 = getObject(result1.getResponse().getContentAsString(), Comment.class);
+
+        TestUserUtil userUtil1 = new TestUserUtil();
+        User user1 = userUtil1.createUser(mockMvc);
+        String token1 = authenticate(userUtil1.username, userUtil1.password);
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/user/%s/like/post/%s", user1.getId(), post.getId()))
+                        .header("Authorization", token1)
+        ).andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/user/%s/like/comment/%s", user1.getId(), comment1.getId()))
+                        .header("Authorization", token1)
+        ).andExpect(MockMvcResultMatchers.status().isOk());
+        likeIngestionService.flush();
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/user/%s/like/comment/%s", user.getId(), comment1.getId()))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk());
+
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/post/%s/view", post.getId()))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        PostView view = getObject(result.getResponse().getContentAsString(), PostView.class);
+
+        assert view.getPost().getId().equals(post.getId());
+        assert view.getPost().getUser().getId().equals(post.getUser().getId());
+        assert view.getLikes() == 1;
+        assert view.getComments().size() == 1;
+        assert view.getComments().get(0).getComment().getId().equals(comment1.getId());
+        assert view.getComments().get(0).getLikes() == 2;
+
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/post/%s/view", UUID.randomUUID()))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    @Test
+    public void testGetBatch() throws Exception {
+        TestUserUtil userUtil = new TestUserUtil();
+        User user = userUtil.createUser(mockMvc);
+        String token = authenticate(userUtil.username, userUtil.password);
+        TestPostUtil postUtil = new TestPostUtil();
+        Post post = postUtil.createPost(mockMvc);
+        TestPostUtil postUtil1 = new TestPostUtil();
+        Post post1 = postUtil1.createPost(mockMvc);
+        Comment comment = new Comment().user(user).post(post).content(UUID.randomUUID().toString());
+        MvcResult result1 = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .post(String.format("/user/%s/post/%s/comment", userUtil.id, postUtil.id))
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getJson(comment))
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(MockMvcResultMatchers.status().isCreated()).andReturn();
+        Comment comment1 = getObject(result1.getResponse().getContentAsString(), Comment.class);
+
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/user/%s/like/post/%s", user.getId(), post.getId()))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/user/%s/like/comment/%s", user.getId(), comment1.getId()))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk());
+
+        String ghost = UUID.randomUUID().toString();
+        MvcResult postLikes = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/post/likes")
+                        .param("ids", String.join(",", post.getId(), post1.getId(), ghost))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        Map<?, ?> likes = getObject(postLikes.getResponse().getContentAsString(), Map.class);
+        assert likes.size() == 2;
+        assert likes.get(post.getId()).equals(1);
+        assert likes.get(post1.getId()).equals(0);
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/comment/likes")
+                        .param("ids", comment1.getId())
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$['" + comment1.getId() + "']").value(1));
+
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/users/batch")
+                        .param("ids", String.join(",", post1.getUser().getId(), ghost, user.getId()))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        User[] users = getObject(result.getResponse().getContentAsString(), User[].class);
+        assert users.length == 2;
+        assert users[0].getId().equals(post1.getUser().getId());
+        assert users[1].getId().equals(user.getId());
+
+        String[] tooMany = new String[101];
+        Arrays.setAll(tooMany, i -> UUID.randomUUID().toString());
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/users/batch")
+                        .param("ids", String.join(",", tooMany))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/post/likes")
+                        .param("ids", "not-an-id")
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
     @Test
     public void testGetLatest() throws Exception {
         TestUserUtil userUtil = new TestUserUtil();
@@ -922,6 +1482,286 @@ class BlogApplicationTests {
         assert posts[1].getId().equals(post1.getId());
     }
 
+    @Test
+    public void testGetLatestByCursor() throws Exception {
+        TestUserUtil userUtil = new TestUserUtil();
+        userUtil.createUser(mockMvc);
+        TestPostUtil postUtil1 = new TestPostUtil();
+        Post post1 = postUtil1.createPost(mockMvc);
+        TestPostUtil postUtil2 = new TestPostUtil();
+        Post post2 = postUtil2.createPost(mockMvc);
+        TestPostUtil postUtil3 = new TestPostUtil();
+        Post post3 = postUtil3.createPost(mockMvc);
+
+        String token = authenticate(userUtil.username, userUtil.password);
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/post/latest/cursor")
+                        .queryParam("pageSize", "2")
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        PostSlice slice = getObject(result.getResponse().getContentAsString(), PostSlice.class);
+        assert slice.getPosts().size() == 2;
+        assert slice.getPosts().get(0).getId().equals(post3.getId());
+        assert slice.getPosts().get(1).getId().equals(post2.getId());
+        assert slice.getNextCursor() != null;
+
+        result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/post/latest/cursor")
+                        .queryParam("pageSize", "2")
+                        .queryParam("cursor", slice.getNextCursor())
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        slice = getObject(result.getResponse().getContentAsString(), PostSlice.class);
+        assert slice.getPosts().get(0).getId().equals(post1.getId());
+
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/post/latest/cursor")
+                        .queryParam("pageSize", "2")
+                        .queryParam("cursor", "invalid")
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void testGetFeed() throws Exception {
+        TestUserUtil userUtil = new TestUserUtil();
+        User user = userUtil.createUser(mockMvc);
+        TestPostUtil postUtil1 = new TestPostUtil();
+        Post post1 = postUtil1.createPost(mockMvc);
+        TestPostUtil postUtil2 = new TestPostUtil();
+        Post post2 = postUtil2.createPost(mockMvc);
+        new TestPostUtil().createPost(mockMvc);
+
+        String token = authenticate(userUtil.username, userUtil.password);
+        for (TestPostUtil postUtil : new TestPostUtil[]{postUtil1, postUtil2}) {
+            mockMvc.perform(
+                    MockMvcRequestBuilders
+                            .get("/user/" + user.getId() + "/follow/" + postUtil.userUtil.id)
+                            .header("Authorization", token)
+            ).andExpect(MockMvcResultMatchers.status().isOk());
+        }
+
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/user/" + user.getId() + "/feed")
+                        .queryParam("pageSize", "1")
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        PostSlice slice = getObject(result.getResponse().getContentAsString(), PostSlice.class);
+        assert slice.getPosts().size() == 1;
+        assert slice.getPosts().get(0).getId().equals(post2.getId());
+
+        result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/user/" + user.getId() + "/feed")
+                        .queryParam("pageSize", "1")
+                        .queryParam("cursor", slice.getNextCursor())
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        slice = getObject(result.getResponse().getContentAsString(), PostSlice.class);
+        assert slice.getPosts().size() == 1;
+        assert slice.getPosts().get(0).getId().equals(post1.getId());
+        assert slice.getNextCursor() == null;
+
+        String token1 = authenticate(postUtil1.userUtil.username, postUtil1.userUtil.password);
+        MvcResult result1 = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .post("/user/" + postUtil1.userUtil.id + "/post")
+                        .header("Authorization", token1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getJson(postUtil1.getPost()))
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(MockMvcResultMatchers.status().isCreated()).andReturn();
+        Post post3 = getObject(result1.getResponse().getContentAsString(), Post.class);
+
+        result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/user/" + user.getId() + "/feed")
+                        .queryParam("pageSize", "10")
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        slice = getObject(result.getResponse().getContentAsString(), PostSlice.class);
+        assert slice.getPosts().size() == 3;
+        assert slice.getPosts().get(0).getId().equals(post3.getId());
+    }
+
+    @Test
+    public void testExportUser() throws Exception {
+        TestPostUtil postUtil = new TestPostUtil();
+        Post post = postUtil.createPost(mockMvc);
+        TestUserUtil userUtil = postUtil.userUtil;
+        Comment comment = new Comment().user(post.getUser()).post(post).content(UUID.randomUUID().toString());
+
+        String token = authenticate(userUtil.username, userUtil.password);
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .post(String.format("/user/%s/post/%s/comment", userUtil.id, post.getId()))
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getJson(comment))
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(MockMvcResultMatchers.status().isCreated());
+
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get(String.format("/user/%s/export", userUtil.id))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+        result = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+
+        assert lines.length == 2;
+        assert objectMapper.readTree(lines[0]).get("post").get("id").asText().equals(post.getId());
+        assert objectMapper.readTree(lines[1]).get("comment").get("content").asText().equals(comment.getContent());
+    }
+
+    @Test
+    public void testGetImage() throws Exception {
+        TestUserUtil userUtil = new TestUserUtil();
+        userUtil.createUser(mockMvc);
+        String token = authenticate(userUtil.username, userUtil.password);
+        byte[] content = UUID.randomUUID().toString().getBytes();
+
+        String[] fileNames = new String[2];
+        for (int i = 0; i < fileNames.length; i++) {
+            MvcResult result = mockMvc.perform(
+                    MockMvcRequestBuilders
+                            .multipart("/image")
+                            .file(new MockMultipartFile("image", "image" + i + ".png", "image/png", content))
+                            .header("Authorization", token)
+            ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+            fileNames[i] = result.getResponse().getContentAsString();
+        }
+        assert fileNames[0].equals(fileNames[1]);
+
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/image/" + fileNames[0])
+        ).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("Cache-Control", "max-age=31536000, public, immutable"))
+                .andReturn();
+        String eTag = result.getResponse().getHeader("ETag");
+        assert result.getResponse().getContentAsByteArray().length == content.length;
+
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/image/" + fileNames[0])
+                        .header("If-None-Match", eTag)
+        ).andExpect(MockMvcResultMatchers.status().isNotModified());
+
+        result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/image/" + fileNames[0])
+                        .header("Range", "bytes=0-3")
+        ).andExpect(MockMvcResultMatchers.status().isPartialContent()).andReturn();
+        assert result.getResponse().getContentAsByteArray().length == 4;
+    }
+
+    @Test
+    public void testGetImageVariant() throws Exception {
+        TestUserUtil userUtil = new TestUserUtil();
+        userUtil.createUser(mockMvc);
+        String token = authenticate(userUtil.username, userUtil.password);
+        BufferedImage image = new BufferedImage(1000, 500, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, UUID.randomUUID().hashCode() & 0xFFFFFF);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", content);
+
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .multipart("/image")
+                        .file(new MockMultipartFile("image", "image.png", "image/png", content.toByteArray()))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        String fileName = result.getResponse().getContentAsString();
+
+        BufferedImage thumb = null;
+        for (int i = 0; i < 50 && (thumb == null || thumb.getWidth() == image.getWidth()); i++) {
+            Thread.sleep(100);
+            result = mockMvc.perform(
+                    MockMvcRequestBuilders
+                            .get("/image/" + fileName)
+                            .queryParam("size", "thumb")
+            ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+            thumb = ImageIO.read(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        }
+        assert thumb.getWidth() == 160;
+        assert thumb.getHeight() == 80;
+        assert result.getResponse().getHeader("ETag").endsWith("-thumb\"");
+
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/image/" + fileName)
+                        .queryParam("size", "huge")
+        ).andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        BufferedImage small = new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB);
+        small.setRGB(0, 0, UUID.randomUUID().hashCode() & 0xFFFFFF);
+        ByteArrayOutputStream smallContent = new ByteArrayOutputStream();
+        ImageIO.write(small, "png", smallContent);
+        result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .multipart("/image")
+                        .file(new MockMultipartFile("image", "small.png", "image/png", smallContent.toByteArray()))
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        String smallFileName = result.getResponse().getContentAsString();
+
+        String cacheControl = null;
+        for (int i = 0; i < 50 && !"max-age=31536000, public, immutable".equals(cacheControl); i++) {
+            Thread.sleep(100);
+            result = mockMvc.perform(
+                    MockMvcRequestBuilders
+                            .get("/image/" + smallFileName)
+                            .queryParam("size", "thumb")
+            ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+            cacheControl = result.getResponse().getHeader("Cache-Control");
+        }
+        assert "max-age=31536000, public, immutable".equals(cacheControl);
+        assert Arrays.equals(result.getResponse().getContentAsByteArray(), smallContent.toByteArray());
+    }
+
+    @Test
+    public void testUploadImageStream() throws Exception {
+        TestUserUtil userUtil = new TestUserUtil();
+        userUtil.createUser(mockMvc);
+        String token = authenticate(userUtil.username, userUtil.password);
+        BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, UUID.randomUUID().hashCode() & 0xFFFFFF);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", content);
+
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .post("/image")
+                        .contentType(MediaType.IMAGE_PNG)
+                        .content(content.toByteArray())
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        String fileName = result.getResponse().getContentAsString();
+        assert fileName.endsWith(".png");
+
+        result = mockMvc.perform(
+                MockMvcRequestBuilders
+                        .get("/image/" + fileName)
+        ).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+        assert Arrays.equals(result.getResponse().getContentAsByteArray(), content.toByteArray());
+
+        mockMvc.perform(
+                MockMvcRequestBuilders
+                        .post("/image")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(UUID.randomUUID().toString().getBytes())
+                        .header("Authorization", token)
+        ).andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
     private String getJson(Object object) throws Exception {
         try {
             return objectMapper.writeValueAsString(object);
@@ -0,0 +1,119 @@
+package com.kiki.blog.app.config;
+
+import com.kiki.blog.app.service.PostService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReadWriteRoutingDataSourceTests {
+    private static final String READ = PostService.class.getName() + ".getPosts";
+    private static final String CACHED_READ = PostService.class.getName() + ".getPost";
+    private static final String WRITE = PostService.class.getName() + ".createPost";
+
+    private final AtomicReference<String> user = new AtomicReference<>();
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private ReadWriteRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        routingDataSource = new ReadWriteRoutingDataSource(
+                primary.getDataSource(),
+                List.of(replica.getDataSource()),
+                List.of(PostService.class.getName()),
+                List.of(CACHED_READ),
+                user::get,
+                Duration.ofMillis(200),
+                Duration.ofSeconds(10),
+                "select seconds from lag");
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        shutdown(primary);
+        shutdown(replica);
+    }
+
+    @Test
+    void testServiceReadsUseReplica() {
+        assertEquals("replica", origin(READ, true));
+        assertEquals("primary", origin(WRITE, false));
+        assertEquals("primary", origin(CACHED_READ, true));
+        assertEquals("primary", origin("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById", true));
+        assertEquals("primary", jdbcTemplate.queryForObject("select name from origin", String.class));
+    }
+
+    @Test
+    void testReadYourWrites() throws InterruptedException {
+        String writer = UUID.randomUUID().toString();
+        user.set(writer);
+        origin(WRITE, false);
+        assertEquals("primary", origin(READ, true));
+
+        user.set(UUID.randomUUID().toString());
+        assertEquals("replica", origin(READ, true));
+
+        Thread.sleep(300);
+        user.set(writer);
+        assertEquals("replica", origin(READ, true));
+    }
+
+    @Test
+    void testLaggingReplica() {
+        replica.update("update lag set seconds = 60");
+        routingDataSource.checkLag();
+        assertEquals("primary", origin(READ, true));
+
+        replica.update("update lag set seconds = 1");
+        routingDataSource.checkLag();
+        assertEquals("replica", origin(READ, true));
+    }
+
+    private String origin(String transactionName, boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setName(transactionName);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status -> jdbcTemplate.queryForObject("select name from origin", String.class));
+    }
+
+    private static JdbcTemplate database(String name) {
+        JdbcTemplate database = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        database.execute("create table origin (name varchar(16))");
+        database.update("insert into origin values (?)", name);
+        database.execute("create table lag (seconds double)");
+        database.update("insert into lag values (0)");
+        return database;
+    }
+
+    private static void shutdown(JdbcTemplate database) {
+        try (Connection connection = database.getDataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("shutdown");
+        } catch (SQLException e) {
+            // closing the connection of a database that has shut down fails
+        }
+    }
+}
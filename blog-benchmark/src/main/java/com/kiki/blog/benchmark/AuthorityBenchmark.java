@@ -0,0 +1,89 @@
+package com.kiki.blog.benchmark;
+
+import com.kiki.blog.app.entity.UserEntity;
+import com.kiki.blog.app.security.model.BlogUserDetail;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run through {@link #main} to get the GC profile, where gc.alloc.rate.norm of canAccess should read 0 B/op. It runs the
+ * check UserService.validateUserContext makes, on the principal in the security context.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorityBenchmark {
+
+    @Param({"ROLE_USER", "ROLE_USER,ROLE_ADMIN"})
+    private String roles;
+
+    private UserEntity user;
+    private BlogUserDetail userDetail;
+    private String requestedUserId;
+
+    @Setup
+    public void setup() {
+        user = new UserEntity();
+        user.setId(UUID.randomUUID());
+        user.setUsername("benchmark");
+        user.setRoles(roles);
+        userDetail = new BlogUserDetail(user);
+        requestedUserId = userDetail.isAdmin() ? UUID.randomUUID().toString() : userDetail.getUid();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetail, null, userDetail.getAuthorities()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return userDetail.getAuthorities();
+    }
+
+    @Benchmark
+    public BlogUserDetail loadPrincipal() {
+        return new BlogUserDetail(user);
+    }
+
+    @Benchmark
+    public boolean canAccess() {
+        return ((BlogUserDetail) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).canAccess(requestedUserId);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AuthorityBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/authority-gc.json")
+                .build()).run();
+    }
+}
@@ -0,0 +1,58 @@
+package com.kiki.blog.benchmark;
+
+import com.kiki.blog.app.entity.UserEntity;
+import com.kiki.blog.app.security.model.BlogUserDetail;
+import com.kiki.blog.app.security.service.JwtTokenService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private final JwtTokenService jwtTokenService = new JwtTokenService(0);
+    private final JwtTokenService cachingJwtTokenService = new JwtTokenService(10000);
+    private BlogUserDetail userDetail;
+    private String token;
+
+    @Setup
+    public void setup() {
+        UserEntity user = new UserEntity();
+        user.setId(UUID.randomUUID());
+        user.setUsername("benchmark");
+        user.setPassword("password");
+        user.setRoles("ROLE_USER");
+        userDetail = new BlogUserDetail(user);
+        token = jwtTokenService.generateToken(userDetail);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtTokenService.generateToken(userDetail);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtTokenService.validateToken(jwtTokenService.verify(token), userDetail);
+    }
+
+    @Benchmark
+    public Boolean validateCachedToken() {
+        return cachingJwtTokenService.validateToken(cachingJwtTokenService.verify(token), userDetail);
+    }
+}
@@ -0,0 +1,90 @@
+package com.kiki.blog.benchmark;
+
+import com.kiki.blog.app.BlogApplication;
+import com.kiki.blog.app.entity.PostEntity;
+import com.kiki.blog.app.entity.UserEntity;
+import com.kiki.blog.app.repository.PostRepository;
+import com.kiki.blog.app.repository.UserRepository;
+import com.kiki.blog.app.service.PostService;
+import com.kiki.blog.openapi.model.Post;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PostService.getLatestPosts against the H2 test profile, seeded with {@link #POSTS} posts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatestPostsBenchmark {
+    private static final int POSTS = 10000;
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private PostService postService;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(BlogApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "spring.devtools.restart.enabled=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "logging.level.org.hibernate.SQL=WARN",
+                        "logging.level.org.hibernate.type=WARN")
+                .run();
+        postService = context.getBean(PostService.class);
+
+        UserEntity user = new UserEntity();
+        user.setUsername("benchmark");
+        user.setPassword("password");
+        user.setEmail("benchmark@kiki.com");
+        user.setRoles("ROLE_USER");
+        user = context.getBean(UserRepository.class).save(user);
+
+        OffsetDateTime now = OffsetDateTime.now();
+        List<PostEntity> posts = new ArrayList<>(POSTS);
+        for (int i = 0; i < POSTS; i++) {
+            PostEntity post = new PostEntity();
+            post.setTitle("Title " + i);
+            post.setContent("Content " + i);
+            post.setDatetime(now.minusSeconds(i));
+            post.setUser(user);
+            posts.add(post);
+        }
+        context.getBean(PostRepository.class).saveAll(posts);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Post> getLatestPosts() {
+        return postService.getLatestPosts(0, pageSize, "datetime");
+    }
+}
@@ -0,0 +1,124 @@
+package com.kiki.blog.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Like lookups against 1M like_post_entity rows (1000 users x 1000 posts), with and without the unique and covering
+ * indexes declared on LikePostEntity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LikeIndexBenchmark {
+    private static final int USERS = 1000;
+    private static final int POSTS = 1000;
+
+    @Param({"false", "true"})
+    private boolean indexed;
+
+    private Connection connection;
+    private UUID[] userIds;
+    private UUID[] postIds;
+    private PreparedStatement countByPost;
+    private PreparedStatement countByUserAndPost;
+    private PreparedStatement insertIfAbsent;
+
+    @Setup
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:likes-" + indexed);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table user_entity (id uuid primary key)");
+            statement.execute("create table post_entity (id uuid primary key)");
+            statement.execute("create table like_post_entity (id uuid primary key, user_id uuid not null, post_id uuid not null)");
+            statement.execute("insert into user_entity select random_uuid() from system_range(1, " + USERS + ")");
+            statement.execute("insert into post_entity select random_uuid() from system_range(1, " + POSTS + ")");
+            statement.execute("insert into like_post_entity select random_uuid(), u.id, p.id from user_entity u cross join post_entity p");
+            if (indexed) {
+                statement.execute("create unique index like_post_user_id_post_id_key on like_post_entity (user_id, post_id)");
+                statement.execute("create index like_post_post_id_user_id_idx on like_post_entity (post_id, user_id)");
+            }
+            statement.execute("analyze");
+        }
+        userIds = loadIds("select id from user_entity");
+        postIds = loadIds("select id from post_entity");
+
+        countByPost = connection.prepareStatement("select count(user_id) from like_post_entity where post_id = ?");
+        countByUserAndPost = connection.prepareStatement("select count(post_id) from like_post_entity where user_id = ? and post_id = ?");
+        insertIfAbsent = connection.prepareStatement("insert into like_post_entity (id, user_id, post_id) " +
+                "select ?, u.id, p.id from user_entity u cross join post_entity p where u.id = ? and p.id = ? " +
+                "and not exists (select 1 from like_post_entity l where l.user_id = u.id and l.post_id = p.id)");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long countLikesByPost() throws SQLException {
+        countByPost.setObject(1, randomId(postIds));
+        return single(countByPost);
+    }
+
+    @Benchmark
+    public long likeExists() throws SQLException {
+        countByUserAndPost.setObject(1, randomId(userIds));
+        countByUserAndPost.setObject(2, randomId(postIds));
+        return single(countByUserAndPost);
+    }
+
+    @Benchmark
+    public int insertDuplicateLike() throws SQLException {
+        insertIfAbsent.setObject(1, UUID.randomUUID());
+        insertIfAbsent.setObject(2, randomId(userIds));
+        insertIfAbsent.setObject(3, randomId(postIds));
+        return insertIfAbsent.executeUpdate();
+    }
+
+    private UUID[] loadIds(String sql) throws SQLException {
+        List<UUID> ids = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                ids.add(resultSet.getObject(1, UUID.class));
+            }
+        }
+        return ids.toArray(new UUID[0]);
+    }
+
+    private static UUID randomId(UUID[] ids) {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private static long single(PreparedStatement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
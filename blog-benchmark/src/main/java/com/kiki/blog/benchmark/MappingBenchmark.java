@@ -0,0 +1,94 @@
+package com.kiki.blog.benchmark;
+
+import com.kiki.blog.app.entity.CommentEntity;
+import com.kiki.blog.app.entity.PostEntity;
+import com.kiki.blog.app.entity.UserEntity;
+import com.kiki.blog.app.mapper.BlogMapper;
+import com.kiki.blog.openapi.model.Comment;
+import com.kiki.blog.openapi.model.Post;
+import org.mapstruct.factory.Mappers;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"20", "100"})
+    private int size;
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final BlogMapper blogMapper = Mappers.getMapper(BlogMapper.class);
+    private List<PostEntity> posts;
+    private List<CommentEntity> comments;
+
+    @Setup
+    public void setup() {
+        UserEntity user = new UserEntity();
+        user.setId(UUID.randomUUID());
+        user.setUsername("benchmark");
+        user.setEmail("benchmark@kiki.com");
+        user.setAvatar("avatar.png");
+
+        posts = new ArrayList<>(size);
+        comments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            PostEntity post = new PostEntity();
+            post.setId(UUID.randomUUID());
+            post.setTitle("Title " + i);
+            post.setContent("Content " + i);
+            post.setDatetime(OffsetDateTime.now());
+            post.setUser(user);
+            posts.add(post);
+
+            CommentEntity comment = new CommentEntity();
+            comment.setId(UUID.randomUUID());
+            comment.setContent("Comment " + i);
+            comment.setDatetime(OffsetDateTime.now());
+            comment.setUser(user);
+            comment.setPost(post);
+            comments.add(comment);
+        }
+    }
+
+    @Benchmark
+    public List<Post> postsModelMapper() {
+        return posts.stream().map(post -> modelMapper.map(post, Post.class)).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Post> postsMapStruct() {
+        return posts.stream().map(blogMapper::toPost).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Comment> commentsModelMapper() {
+        return comments.stream().map(comment -> modelMapper.map(comment, Comment.class)).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Comment> commentsMapStruct() {
+        return comments.stream().map(blogMapper::toComment).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,63 @@
+package com.kiki.blog.benchmark;
+
+import com.kiki.blog.app.entity.PostEntity;
+import com.kiki.blog.app.error.exception.InvalidRequestException;
+import com.kiki.blog.app.model.SearchCursor;
+import com.kiki.blog.app.service.SearchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranks queries against 1M posts drawn from a skewed 50k word vocabulary, where w0 is the most frequent word. Sample
+ * mode reports the p99 of a single ranked page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class SearchBenchmark {
+    private static final int POSTS = 1_000_000;
+    private static final int VOCABULARY = 50_000;
+    private static final int WORDS_PER_POST = 8;
+
+    @Param({"w5000", "w50 w500", "w0 w1", "w0"})
+    private String query;
+
+    private final SearchService searchService = new SearchService(null, null, null);
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < POSTS; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < WORDS_PER_POST; j++) {
+                content.append('w').append((int) (Math.pow(random.nextDouble(), 3) * VOCABULARY)).append(' ');
+            }
+            PostEntity post = new PostEntity();
+            post.setId(new UUID(random.nextLong(), random.nextLong()));
+            post.setContent(content.toString());
+            searchService.indexPost(post);
+        }
+    }
+
+    @Benchmark
+    public List<SearchCursor> rank() throws InvalidRequestException {
+        return searchService.rank(query, null, null, 21);
+    }
+}
@@ -0,0 +1,120 @@
+package com.kiki.blog.benchmark;
+
+import com.kiki.blog.app.BlogApplication;
+import com.kiki.blog.app.entity.PostEntity;
+import com.kiki.blog.app.entity.UserEntity;
+import com.kiki.blog.app.repository.PostRepository;
+import com.kiki.blog.app.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The lookups behind authenticating and rendering a post, as the test suite's workflows do them: the principal by
+ * username, the user by id and the post by id. Run with and without the second-level cache, the statements counter
+ * reports the database round trips per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecondLevelCacheBenchmark {
+    private static final int USERS = 1000;
+
+    @Param({"true", "false"})
+    private boolean secondLevelCache;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private PostRepository postRepository;
+    private Statistics statistics;
+    private final List<UserEntity> users = new ArrayList<>(USERS);
+    private final List<UUID> posts = new ArrayList<>(USERS);
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundTrips {
+        public long statements;
+    }
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(BlogApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "spring.devtools.restart.enabled=false",
+                        "spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache,
+                        "spring.jpa.properties.hibernate.cache.use_query_cache=" + secondLevelCache,
+                        "logging.level.org.hibernate.SQL=WARN",
+                        "logging.level.org.hibernate.type=WARN")
+                .run();
+        userRepository = context.getBean(UserRepository.class);
+        postRepository = context.getBean(PostRepository.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        OffsetDateTime now = OffsetDateTime.now();
+        for (int i = 0; i < USERS; i++) {
+            UserEntity user = new UserEntity();
+            user.setUsername("benchmark-" + i);
+            user.setPassword("password");
+            user.setEmail("benchmark-" + i + "@kiki.com");
+            user.setRoles("ROLE_USER");
+            user = userRepository.save(user);
+            users.add(user);
+
+            PostEntity post = new PostEntity();
+            post.setTitle("Title " + i);
+            post.setContent("Content " + i);
+            post.setDatetime(now.minusSeconds(i));
+            post.setUser(user);
+            posts.add(postRepository.save(post).getId());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStatistics() {
+        statistics.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void renderPost(RoundTrips roundTrips, Blackhole blackhole) {
+        int i = ThreadLocalRandom.current().nextInt(USERS);
+        long before = statistics.getPrepareStatementCount();
+        blackhole.consume(userRepository.findByNaturalUsername(users.get(i).getUsername()));
+        blackhole.consume(userRepository.findById(users.get(i).getId()));
+        blackhole.consume(postRepository.findById(posts.get(i)));
+        roundTrips.statements += statistics.getPrepareStatementCount() - before;
+    }
+}